@@ -0,0 +1,137 @@
+/**
+ * Caché del catálogo activo.
+ * Guarda la foto vigente y la reemplaza en cada escritura de productos.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.catalog;
+
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductSummary;
+import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Mantiene la foto vigente del catálogo activo (ACTIVE y AVAILABLE).
+ *
+ * Los lectores solo leen una referencia volátil, sin bloqueos. Los escritores
+ * se serializan entre sí y publican una foto nueva con la versión siguiente.
+ * Mientras no se haya construido la primera foto, isReady() devuelve false
+ * y los servicios consultan la base de datos.
+ *
+ * Los cambios llegan desde afterCommit de transacciones distintas y pueden
+ * aplicarse en otro orden que el de confirmación. Cada resumen trae la versión
+ * de su fila: uno más viejo que el guardado (o que la baja registrada del
+ * producto) se ignora.
+ */
+@Component
+public class ActiveCatalogCache {
+
+    private volatile CatalogSnapshot snapshot;
+
+    /** Versión con la que cada producto salió de la foto; se vacía al reconstruirla */
+    private final Map<UUID, Long> removedVersions = new HashMap<>();
+
+    /**
+     * Foto vigente, o null si todavía no se ha construido.
+     */
+    public CatalogSnapshot current() {
+        return snapshot;
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * Reemplaza la foto completa. La versión nunca retrocede.
+     *
+     * @param products Productos activos en cualquier orden
+     */
+    public synchronized void rebuild(List<ProductSummary> products) {
+        List<ProductSummary> active = new ArrayList<>(products.size());
+        for (ProductSummary product : products) {
+            if (isActive(product)) {
+                active.add(product);
+            }
+        }
+        long version = snapshot == null ? System.currentTimeMillis() : snapshot.getVersion() + 1;
+        snapshot = CatalogSnapshot.of(version, active);
+        removedVersions.clear();
+    }
+
+    /**
+     * Aplica el estado nuevo de un producto: entra o se actualiza si está activo,
+     * sale de la foto si dejó de estarlo.
+     */
+    public synchronized void apply(ProductSummary product) {
+        if (snapshot == null || isStale(snapshot, product)) {
+            return;
+        }
+        snapshot = isActive(product) ? snapshot.with(product) : snapshot.without(product.getId());
+        track(product);
+    }
+
+    /**
+     * Aplica un lote de productos en un solo paso (por ejemplo, una importación),
+     * publicando una sola foto nueva en lugar de una por producto.
+     */
+    public synchronized void applyAll(Collection<ProductSummary> products) {
+        if (snapshot == null) {
+            return;
+        }
+        List<ProductSummary> active = new ArrayList<>(products.size());
+        CatalogSnapshot next = snapshot;
+        for (ProductSummary product : products) {
+            if (isStale(snapshot, product)) {
+                continue;
+            }
+            if (isActive(product)) {
+                active.add(product);
+            } else {
+                next = next.without(product.getId());
+            }
+            track(product);
+        }
+        snapshot = next.withAll(active);
+    }
+
+    /**
+     * Quita un producto eliminado. Ningún resumen posterior lo vuelve a agregar.
+     */
+    public synchronized void remove(UUID productId) {
+        if (snapshot != null) {
+            snapshot = snapshot.without(productId);
+            removedVersions.put(productId, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Indica si el resumen es anterior a lo que ya refleja la foto.
+     * A igual versión se aplica: el resumen se releyó de la misma fila.
+     */
+    private boolean isStale(CatalogSnapshot current, ProductSummary product) {
+        ProductSummary stored = current.find(product.getId());
+        if (stored != null) {
+            return product.getVersion() < stored.getVersion();
+        }
+        Long removed = removedVersions.get(product.getId());
+        return removed != null && product.getVersion() < removed;
+    }
+
+    private void track(ProductSummary product) {
+        if (isActive(product)) {
+            removedVersions.remove(product.getId());
+        } else {
+            removedVersions.put(product.getId(), product.getVersion());
+        }
+    }
+
+    private static boolean isActive(ProductSummary product) {
+        return product.getStatus() == ProductStatus.ACTIVE || product.getStatus() == ProductStatus.AVAILABLE;
+    }
+}
@@ -0,0 +1,287 @@
+/**
+ * Foto inmutable del catálogo activo.
+ * Cada cambio publica una foto nueva que comparte lo que no cambió; se lee sin bloqueos.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.catalog;
+
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductSummary;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Productos activos ordenados por ID con el mismo orden que la base de datos
+ * (bytes sin signo), para que los cursores de paginación sirvan en ambos caminos.
+ *
+ * Ningún método modifica la instancia: cada cambio crea una foto nueva con
+ * la versión siguiente, así que un lector siempre ve un estado consistente.
+ *
+ * Los productos se guardan en trozos ordenados de unos cientos de elementos.
+ * Un cambio copia solo los trozos que toca y la lista de referencias a trozos,
+ * no el catálogo entero; así el stock que descuenta cada orden no cuesta una
+ * copia de todos los productos.
+ */
+public final class CatalogSnapshot {
+
+    /** Orden de UUID igual al de la columna BINARY(16) */
+    public static final Comparator<UUID> ID_ORDER = (a, b) -> {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    };
+
+    /** Productos por trozo al construir la foto; un trozo que crece al doble se parte en dos */
+    private static final int CHUNK_SIZE = 256;
+
+    private final long version;
+
+    /** Trozos no vacíos, en orden; ninguno se modifica después de publicar la foto */
+    private final List<List<ProductSummary>> chunks;
+
+    /** Posición global del primer producto de cada trozo; la última entrada es el total */
+    private final int[] offsets;
+
+    private final List<ProductSummary> products = new Products();
+
+    private CatalogSnapshot(long version, List<List<ProductSummary>> chunks) {
+        this.version = version;
+        this.chunks = chunks;
+        this.offsets = new int[chunks.size() + 1];
+        for (int i = 0; i < chunks.size(); i++) {
+            offsets[i + 1] = offsets[i] + chunks.get(i).size();
+        }
+    }
+
+    /**
+     * Crea una foto a partir de productos en cualquier orden.
+     */
+    public static CatalogSnapshot of(long version, List<ProductSummary> products) {
+        List<ProductSummary> sorted = new ArrayList<>(products);
+        sorted.sort((a, b) -> ID_ORDER.compare(a.getId(), b.getId()));
+        List<List<ProductSummary>> chunks = new ArrayList<>();
+        for (int from = 0; from < sorted.size(); from += CHUNK_SIZE) {
+            chunks.add(new ArrayList<>(sorted.subList(from, Math.min(sorted.size(), from + CHUNK_SIZE))));
+        }
+        return new CatalogSnapshot(version, chunks);
+    }
+
+    /**
+     * Devuelve una foto nueva con el producto agregado o reemplazado.
+     */
+    public CatalogSnapshot with(ProductSummary product) {
+        Patch patch = new Patch();
+        patch.put(product);
+        return patch.build();
+    }
+
+    /**
+     * Devuelve una foto nueva con varios productos agregados o reemplazados.
+     * Cada trozo tocado se copia una sola vez para todo el lote.
+     */
+    public CatalogSnapshot withAll(Collection<ProductSummary> changed) {
+        if (changed.isEmpty()) {
+            return this;
+        }
+        Patch patch = new Patch();
+        for (ProductSummary product : changed) {
+            patch.put(product);
+        }
+        return patch.build();
+    }
+
+    /**
+     * Devuelve una foto nueva sin el producto; la misma foto si no estaba.
+     */
+    public CatalogSnapshot without(UUID productId) {
+        Patch patch = new Patch();
+        patch.remove(productId);
+        return patch.build();
+    }
+
+    /**
+     * Productos con ID mayor que el cursor, como máximo limit elementos.
+     *
+     * @param after Último ID entregado (null para empezar desde el inicio)
+     * @param limit Número máximo de productos
+     */
+    public List<ProductSummary> page(UUID after, int limit) {
+        int from = 0;
+        if (after != null) {
+            int index = indexOf(after);
+            from = index >= 0 ? index + 1 : -index - 1;
+        }
+        return products.subList(from, Math.min(products.size(), from + limit));
+    }
+
+    /**
+     * Busca un producto activo por ID; null si no está en la foto.
+     */
+    public ProductSummary find(UUID productId) {
+        if (chunks.isEmpty()) {
+            return null;
+        }
+        List<ProductSummary> chunk = chunks.get(chunkFor(chunks, productId));
+        int index = search(chunk, productId);
+        return index >= 0 ? chunk.get(index) : null;
+    }
+
+    public long getVersion() { return version; }
+
+    /**
+     * Todos los productos en orden, como vista de solo lectura sobre los trozos.
+     */
+    public List<ProductSummary> getProducts() { return products; }
+
+    /**
+     * Posición global del producto, o -(punto de inserción + 1) si no está.
+     */
+    private int indexOf(UUID id) {
+        if (chunks.isEmpty()) {
+            return -1;
+        }
+        int chunk = chunkFor(chunks, id);
+        int index = search(chunks.get(chunk), id);
+        return index >= 0 ? offsets[chunk] + index : -(offsets[chunk] - index - 1) - 1;
+    }
+
+    /**
+     * Trozo donde está o debería estar el ID: el último cuyo primer producto no es mayor.
+     */
+    private static int chunkFor(List<List<ProductSummary>> chunks, UUID id) {
+        int low = 1;
+        int high = chunks.size() - 1;
+        int found = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (ID_ORDER.compare(chunks.get(mid).get(0).getId(), id) <= 0) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private static int search(List<ProductSummary> chunk, UUID id) {
+        int low = 0;
+        int high = chunk.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = ID_ORDER.compare(chunk.get(mid).getId(), id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Cambios sobre una copia de la lista de trozos. Un trozo se copia la primera
+     * vez que se toca y los siguientes cambios del lote lo modifican en su lugar.
+     */
+    private final class Patch {
+        final List<List<ProductSummary>> next = new ArrayList<>(chunks);
+        final Set<List<ProductSummary>> copied = Collections.newSetFromMap(new IdentityHashMap<>());
+        boolean changed;
+
+        void put(ProductSummary product) {
+            changed = true;
+            if (next.isEmpty()) {
+                List<ProductSummary> chunk = new ArrayList<>();
+                chunk.add(product);
+                next.add(chunk);
+                copied.add(chunk);
+                return;
+            }
+            int position = chunkFor(next, product.getId());
+            List<ProductSummary> chunk = writable(position);
+            int index = search(chunk, product.getId());
+            if (index >= 0) {
+                chunk.set(index, product);
+                return;
+            }
+            chunk.add(-index - 1, product);
+            if (chunk.size() > 2 * CHUNK_SIZE) {
+                List<ProductSummary> head = new ArrayList<>(chunk.subList(0, CHUNK_SIZE));
+                List<ProductSummary> tail = new ArrayList<>(chunk.subList(CHUNK_SIZE, chunk.size()));
+                next.set(position, head);
+                next.add(position + 1, tail);
+                copied.add(head);
+                copied.add(tail);
+            }
+        }
+
+        void remove(UUID productId) {
+            if (next.isEmpty()) {
+                return;
+            }
+            int position = chunkFor(next, productId);
+            int index = search(next.get(position), productId);
+            if (index < 0) {
+                return;
+            }
+            changed = true;
+            List<ProductSummary> chunk = writable(position);
+            chunk.remove(index);
+            if (chunk.isEmpty()) {
+                next.remove(position);
+            }
+        }
+
+        private List<ProductSummary> writable(int position) {
+            List<ProductSummary> chunk = next.get(position);
+            if (!copied.contains(chunk)) {
+                chunk = new ArrayList<>(chunk);
+                next.set(position, chunk);
+                copied.add(chunk);
+            }
+            return chunk;
+        }
+
+        CatalogSnapshot build() {
+            return changed ? new CatalogSnapshot(version + 1, next) : CatalogSnapshot.this;
+        }
+    }
+
+    /**
+     * Vista de solo lectura de todos los productos sobre los trozos.
+     */
+    private final class Products extends AbstractList<ProductSummary> implements RandomAccess {
+
+        @Override
+        public ProductSummary get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            // Último trozo que empieza en una posición menor o igual
+            int low = 0;
+            int high = chunks.size() - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (offsets[mid] <= index) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return chunks.get(low).get(index - offsets[low]);
+        }
+
+        @Override
+        public int size() {
+            return offsets[chunks.size()];
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Versiones del catálogo para validación HTTP.
+ * Permiten responder 304 sin cargar productos ni categorías.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.catalog;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de versión en memoria para productos, catálogo y categorías.
+ *
+ * Cada cambio de producto toma el siguiente número de una secuencia global y lo
+ * guarda como versión de ese producto y del catálogo. Los productos que no han
+ * cambiado desde el arranque tienen versión 0. Todas las etiquetas incluyen la
+ * hora de arranque, así que las de una ejecución anterior nunca coinciden.
+ *
+ * La secuencia empieza en la hora de arranque en milisegundos por mil, de modo
+ * que las versiones siguen creciendo entre reinicios y sirven para la
+ * sincronización incremental de clientes.
+ */
+@Component
+public class CatalogVersions {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong sequence = new AtomicLong(epoch * 1000);
+    private final Map<UUID, Long> productVersions = new ConcurrentHashMap<>();
+    private final AtomicLong catalogVersion = new AtomicLong(epoch * 1000);
+    private final AtomicLong categoriesVersion = new AtomicLong();
+
+    /**
+     * Registra un cambio (alta, actualización o eliminación) de un producto.
+     *
+     * @return Nueva versión del catálogo
+     */
+    public long productChanged(UUID productId) {
+        long version = sequence.incrementAndGet();
+        productVersions.merge(productId, version, Math::max);
+        catalogVersion.accumulateAndGet(version, Math::max);
+        return version;
+    }
+
+    /**
+     * Registra un cambio en los contadores de un producto (vistas, calificaciones).
+     * Solo cambia la versión del producto: los listados no muestran contadores,
+     * así que sus etiquetas siguen sirviendo.
+     */
+    public void countersChanged(UUID productId) {
+        productVersions.merge(productId, sequence.incrementAndGet(), Math::max);
+    }
+
+    /**
+     * Versión vigente del catálogo (la del último cambio de producto).
+     */
+    public long catalogVersion() {
+        return catalogVersion.get();
+    }
+
+    /**
+     * Registra un cambio en las categorías.
+     */
+    public void categoriesChanged() {
+        categoriesVersion.incrementAndGet();
+    }
+
+    /**
+     * ETag fuerte de un producto y de las vistas derivadas de él (por ejemplo, disponibilidad).
+     * Incluye la versión de categorías porque el producto se serializa con su categoría.
+     */
+    public String productTag(UUID productId) {
+        return tag(productVersions.getOrDefault(productId, 0L) + "-" + categoriesVersion.get());
+    }
+
+    /**
+     * ETag fuerte de los listados del catálogo.
+     */
+    public String catalogTag() {
+        return tag(catalogVersion.get() + "-" + categoriesVersion.get());
+    }
+
+    /**
+     * ETag fuerte de la lista de categorías.
+     */
+    public String categoriesTag() {
+        return tag(String.valueOf(categoriesVersion.get()));
+    }
+
+    private String tag(String version) {
+        return "\"" + Long.toString(epoch, 36) + "-" + version + "\"";
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Registro de cambios de productos.
+ * Permite a los clientes pedir solo lo que cambió desde una versión.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.catalog;
+
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductChanges;
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductSummary;
+import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Búfer circular con los últimos cambios de productos, en orden de versión.
+ *
+ * Cada registro guarda la versión asignada, el ID y el resumen nuevo (null si el
+ * producto fue eliminado). Al leer desde una versión se conserva solo el último
+ * cambio de cada producto: los activos salen como altas o cambios y los
+ * eliminados o desactivados como bajas. Si la versión pedida es anterior al
+ * registro más viejo que se conserva, el cliente debe recargar el catálogo.
+ */
+@Component
+public class ProductChangeLog {
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    private final long[] versions;
+    private final UUID[] ids;
+    private final ProductSummary[] summaries;
+    private int head;
+    private int size;
+
+    /**
+     * Versión anterior al registro más viejo; se pueden servir cambios desde ella.
+     */
+    private long floor;
+
+    public ProductChangeLog(@Value("${app.products.changes.capacity:10000}") int capacity) {
+        versions = new long[capacity];
+        ids = new UUID[capacity];
+        summaries = new ProductSummary[capacity];
+        floor = -1;
+    }
+
+    /**
+     * Registra el estado nuevo de un producto y le asigna la siguiente versión.
+     *
+     * @param productId ID del producto
+     * @param summary Resumen guardado, o null si el producto fue eliminado
+     * @return Versión asignada al cambio
+     */
+    public synchronized long record(UUID productId, ProductSummary summary) {
+        long version = catalogVersions.productChanged(productId);
+        if (floor < 0) {
+            floor = version - 1;
+        }
+        int slot = (head + size) % versions.length;
+        if (size == versions.length) {
+            // Búfer lleno: se descarta el más viejo y sube el mínimo servible
+            floor = versions[head];
+            head = (head + 1) % versions.length;
+        } else {
+            size++;
+        }
+        versions[slot] = version;
+        ids[slot] = productId;
+        summaries[slot] = summary;
+        return version;
+    }
+
+    /**
+     * Devuelve los cambios posteriores a la versión indicada.
+     *
+     * @param since Última versión que tiene el cliente (null si no tiene ninguna)
+     * @return Altas/cambios y bajas, la versión hasta la que llega y si hace falta recargar todo
+     */
+    public synchronized ProductChanges since(Long since) {
+        long current = catalogVersions.catalogVersion();
+        long servable = floor < 0 ? current : floor;
+        if (since == null || since < servable || since > current) {
+            return new ProductChanges(current, new ArrayList<>(), new ArrayList<>(), true);
+        }
+        Map<UUID, ProductSummary> latest = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) % versions.length;
+            if (versions[slot] > since) {
+                latest.remove(ids[slot]);
+                latest.put(ids[slot], summaries[slot]);
+            }
+        }
+        List<ProductSummary> upserts = new ArrayList<>();
+        List<UUID> removed = new ArrayList<>();
+        for (Map.Entry<UUID, ProductSummary> entry : latest.entrySet()) {
+            ProductSummary summary = entry.getValue();
+            if (summary != null && (summary.getStatus() == ProductStatus.ACTIVE || summary.getStatus() == ProductStatus.AVAILABLE)) {
+                upserts.add(summary);
+            } else {
+                removed.add(entry.getKey());
+            }
+        }
+        return new ProductChanges(current, upserts, removed, false);
+    }
+}
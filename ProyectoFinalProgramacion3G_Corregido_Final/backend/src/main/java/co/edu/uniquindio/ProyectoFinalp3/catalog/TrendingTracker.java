@@ -0,0 +1,199 @@
+/**
+ * Detector de productos en tendencia.
+ * Estima la actividad reciente por producto con memoria fija.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.catalog;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Count-min sketch con decaimiento exponencial más un montículo con los K mejores.
+ *
+ * El sketch es una matriz fija de profundidad x ancho: cada evento suma su peso
+ * en una celda por fila y la estimación de un producto es el mínimo de sus
+ * celdas, así que la memoria no depende del tamaño del catálogo.
+ *
+ * El decaimiento usa "forward decay": en lugar de envejecer todas las celdas,
+ * cada evento nuevo pesa exp(lambda * t), de modo que los eventos viejos pierden
+ * importancia relativa. Como todas las puntuaciones comparten la escala, el
+ * orden del montículo sigue siendo válido. Cuando la escala crece demasiado se
+ * divide todo y se mueve el punto de referencia.
+ *
+ * El montículo (mínimo en la cima) guarda los candidatos con mayor estimación;
+ * un producto nuevo entra si supera al peor de ellos.
+ */
+@Component
+public class TrendingTracker {
+
+    /** Exponente máximo antes de reescalar, lejos del desbordamiento de double */
+    private static final double MAX_EXPONENT = 30;
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x27D4EB2F165667C5L, 0x94D049BB133111EBL
+    };
+
+    private final int depth;
+    private final int width;
+    private final int capacity;
+    private final double lambda;
+    private final double[][] cells;
+
+    private final Map<UUID, Candidate> candidates = new HashMap<>();
+    private final PriorityQueue<Candidate> heap =
+            new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.score));
+
+    private long landmark = System.currentTimeMillis();
+
+    /** Peso de cada tipo de actividad */
+    @Value("${app.products.trending.weights.view:1}")
+    private double viewWeight;
+
+    @Value("${app.products.trending.weights.like:3}")
+    private double likeWeight;
+
+    @Value("${app.products.trending.weights.order-unit:5}")
+    private double orderUnitWeight;
+
+    public TrendingTracker(@Value("${app.products.trending.depth:4}") int depth,
+                           @Value("${app.products.trending.width:2048}") int width,
+                           @Value("${app.products.trending.capacity:100}") int capacity,
+                           @Value("${app.products.trending.half-life-minutes:60}") double halfLifeMinutes) {
+        this.depth = Math.min(depth, SEEDS.length);
+        this.width = width;
+        this.capacity = capacity;
+        this.lambda = Math.log(2) / (halfLifeMinutes * 60_000);
+        this.cells = new double[this.depth][width];
+    }
+
+    public void recordViews(UUID productId, long views) {
+        record(productId, views * viewWeight);
+    }
+
+    public void recordLike(UUID productId) {
+        record(productId, likeWeight);
+    }
+
+    public void recordOrderUnits(UUID productId, int units) {
+        record(productId, units * orderUnitWeight);
+    }
+
+    /**
+     * Registra actividad de un producto (vista, like, unidades vendidas...).
+     *
+     * @param productId ID del producto
+     * @param weight Peso del evento; se ignora si no es positivo
+     */
+    public synchronized void record(UUID productId, double weight) {
+        if (weight <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (lambda * (now - landmark) > MAX_EXPONENT) {
+            rescale(now);
+        }
+        double scaled = weight * Math.exp(lambda * (now - landmark));
+        double estimate = Double.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int column = column(productId, row);
+            cells[row][column] += scaled;
+            estimate = Math.min(estimate, cells[row][column]);
+        }
+
+        Candidate candidate = candidates.get(productId);
+        if (candidate != null) {
+            heap.remove(candidate);
+            candidate.score = estimate;
+            heap.add(candidate);
+        } else if (candidates.size() < capacity) {
+            candidate = new Candidate(productId, estimate);
+            candidates.put(productId, candidate);
+            heap.add(candidate);
+        } else if (estimate > heap.peek().score) {
+            Candidate evicted = heap.poll();
+            candidates.remove(evicted.productId);
+            candidate = new Candidate(productId, estimate);
+            candidates.put(productId, candidate);
+            heap.add(candidate);
+        }
+    }
+
+    /**
+     * Deja de proponer un producto (por ejemplo, porque se eliminó).
+     * Su aporte al sketch se queda y se diluye con el tiempo.
+     */
+    public synchronized void remove(UUID productId) {
+        Candidate candidate = candidates.remove(productId);
+        if (candidate != null) {
+            heap.remove(candidate);
+        }
+    }
+
+    /**
+     * Productos con más actividad reciente, de mayor a menor.
+     *
+     * @param limit Número máximo de IDs
+     */
+    public synchronized List<UUID> top(int limit) {
+        List<Candidate> ranked = new ArrayList<>(heap);
+        ranked.sort(Comparator.comparingDouble((Candidate c) -> c.score).reversed());
+        List<UUID> ids = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            ids.add(ranked.get(i).productId);
+        }
+        return ids;
+    }
+
+    /**
+     * Divide celdas y puntuaciones por la escala acumulada y reinicia la referencia.
+     */
+    private void rescale(long now) {
+        double factor = Math.exp(lambda * (now - landmark));
+        for (double[] row : cells) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] /= factor;
+            }
+        }
+        for (Candidate candidate : candidates.values()) {
+            candidate.score /= factor;
+        }
+        landmark = now;
+    }
+
+    private int column(UUID productId, int row) {
+        long hash = mix(productId.getMostSignificantBits() ^ SEEDS[row])
+                ^ mix(productId.getLeastSignificantBits() + SEEDS[row]);
+        return (int) Long.remainderUnsigned(hash, width);
+    }
+
+    /**
+     * Mezclador de 64 bits (finalizador de MurmurHash3).
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static final class Candidate {
+        final UUID productId;
+        double score;
+
+        Candidate(UUID productId, double score) {
+            this.productId = productId;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ * Filtro de idempotencia.
+ * Repite la respuesta guardada cuando se reintenta una petición con la misma clave.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.config;
+
+import co.edu.uniquindio.ProyectoFinalp3.models.IdempotencyRecord;
+import co.edu.uniquindio.ProyectoFinalp3.services.IdempotencyService;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Soporte de la cabecera Idempotency-Key en las rutas configuradas
+ * (por defecto crear orden y procesar pago).
+ *
+ * La primera petición con una clave se ejecuta normalmente y su respuesta se
+ * guarda junto con una huella de la petición. Los reintentos con la misma clave
+ * reciben esa respuesta sin llegar al controlador, con la cabecera
+ * Idempotent-Replayed. Reusar la clave con otra petición responde 422.
+ * Las respuestas 5xx no se guardan, para que el cliente pueda reintentar.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String KEY_HEADER = "Idempotency-Key";
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    /**
+     * Rutas POST que aceptan la cabecera, separadas por comas.
+     */
+    @Value("${app.idempotency.paths:/api/orders/create,/payments/process}")
+    private String pathsCsv;
+
+    private Set<String> paths;
+
+    @PostConstruct
+    public void init() {
+        paths = Arrays.stream(pathsCsv.split(","))
+                .map(String::trim)
+                .filter(path -> !path.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || request.getHeader(KEY_HEADER) == null
+                || !paths.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(KEY_HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            sendError(response, HttpStatus.BAD_REQUEST,
+                    "La cabecera " + KEY_HEADER + " debe tener entre 1 y " + MAX_KEY_LENGTH + " caracteres.");
+            return;
+        }
+
+        // Los parámetros se leen antes que el cuerpo: si llegan como formulario, el contenedor los consume de él
+        Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+        byte[] body = request.getInputStream().readAllBytes();
+        MessageDigest digest = sha256();
+        digest.update((request.getMethod() + "\n" + request.getRequestURI() + "\n").getBytes(StandardCharsets.UTF_8));
+        for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+            digest.update((parameter.getKey() + "=" + String.join(",", parameter.getValue()) + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update(body);
+        String fingerprint = HexFormat.of().formatHex(digest.digest());
+        String id = HexFormat.of().formatHex(sha256()
+                .digest((request.getRequestURI() + "\n" + key).getBytes(StandardCharsets.UTF_8)));
+
+        IdempotencyRecord stored;
+        try {
+            stored = idempotencyService.begin(id, fingerprint);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendError(response, HttpStatus.SERVICE_UNAVAILABLE, "La petición se interrumpió; reintente.");
+            return;
+        }
+        if (stored != null) {
+            if (!fingerprint.equals(stored.getFingerprint())) {
+                sendError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        "La clave " + KEY_HEADER + " ya se usó con una petición distinta.");
+            } else if (stored.getStatus() == 0) {
+                sendError(response, HttpStatus.CONFLICT, "La petición original con esta clave sigue en curso.");
+            } else {
+                replay(response, stored);
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper capture = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(new CachedBodyRequest(request, body), capture);
+            if (capture.getStatus() < 500) {
+                idempotencyService.complete(id, fingerprint, capture.getStatus(), capture.getContentType(),
+                        new String(capture.getContentAsByteArray(), StandardCharsets.UTF_8));
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                idempotencyService.abandon(id);
+            }
+            capture.copyBodyToResponse();
+        }
+    }
+
+    private static void replay(HttpServletResponse response, IdempotencyRecord stored) throws IOException {
+        response.setStatus(stored.getStatus());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.getContentType() != null) {
+            response.setContentType(stored.getContentType());
+        }
+        if (stored.getResponseBody() != null) {
+            byte[] body = stored.getResponseBody().getBytes(StandardCharsets.UTF_8);
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    private static void sendError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getOutputStream().write(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no está disponible", e);
+        }
+    }
+
+    /**
+     * Petición cuyo cuerpo ya se leyó para calcular la huella y se vuelve a entregar.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // El cuerpo ya está completo en memoria: se avisa enseguida que hay datos y que se leyeron todos
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encoding)));
+        }
+    }
+}
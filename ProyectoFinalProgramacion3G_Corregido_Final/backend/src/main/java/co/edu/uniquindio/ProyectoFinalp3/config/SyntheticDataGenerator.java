@@ -0,0 +1,501 @@
+/**
+ * Generador de datos sintéticos.
+ * Llena la base de datos con volúmenes grandes para pruebas de carga.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.config;
+
+import co.edu.uniquindio.ProyectoFinalp3.enums.OrderStatus;
+import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+import co.edu.uniquindio.ProyectoFinalp3.enums.RoleEnum;
+import co.edu.uniquindio.ProyectoFinalp3.models.MarketPlace;
+import co.edu.uniquindio.ProyectoFinalp3.repository.MarketPlaceRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Crea usuarios, categorías, productos, likes, calificaciones, comentarios,
+ * órdenes, chats y mensajes en las cantidades configuradas.
+ *
+ * Solo se activa con el perfil "loadtest", combinado con el de la base de datos
+ * (por ejemplo --spring.profiles.active=postgres,loadtest), y no hace nada si
+ * ya existen productos. Todo se inserta con batchUpdate de JDBC, sin pasar por
+ * JPA, y solo se guardan en memoria los IDs como pares de long.
+ *
+ * La popularidad sigue una ley de Zipf: pocos productos concentran la mayoría
+ * de likes, calificaciones, comentarios y ventas, y pocos usuarios concentran
+ * la mayor parte de la actividad, como en un catálogo real. Con la misma semilla
+ * se generan siempre los mismos datos.
+ */
+@Component
+@Profile("loadtest")
+public class SyntheticDataGenerator implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    private static final String[] ADJECTIVES = {
+            "Premium", "Clásico", "Compacto", "Inalámbrico", "Ecológico", "Profesional",
+            "Ligero", "Resistente", "Deluxe", "Básico", "Portátil", "Artesanal"
+    };
+
+    private static final String[] NOUNS = {
+            "Audífonos", "Camiseta", "Lámpara", "Mochila", "Teclado", "Reloj", "Silla",
+            "Zapatos", "Cafetera", "Libro", "Bicicleta", "Monitor", "Chaqueta", "Taladro"
+    };
+
+    private static final String[] COMMENTS = {
+            "Muy buen producto, llegó rápido", "La calidad es la esperada", "No era lo que esperaba",
+            "Excelente relación calidad-precio", "Lo recomiendo", "El vendedor respondió todas mis dudas"
+    };
+
+    private static final String[] MESSAGES = {
+            "Hola, ¿sigue disponible?", "Sí, todavía lo tengo", "¿Haces envíos?",
+            "Claro, a todo el país", "¿Aceptas transferencia?", "Perfecto, gracias"
+    };
+
+    /** Distribución de estrellas: 1 a 5, sesgada hacia calificaciones altas */
+    private static final double[] STAR_CDF = { 0.07, 0.13, 0.25, 0.55, 1.0 };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MarketPlaceRepository marketPlaceRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Value("${app.synthetic.users:10000}")
+    private int userCount;
+
+    @Value("${app.synthetic.categories:50}")
+    private int categoryCount;
+
+    @Value("${app.synthetic.products:100000}")
+    private int productCount;
+
+    @Value("${app.synthetic.likes:1000000}")
+    private long likeCount;
+
+    @Value("${app.synthetic.ratings:200000}")
+    private long ratingCount;
+
+    @Value("${app.synthetic.comments:100000}")
+    private long commentCount;
+
+    @Value("${app.synthetic.orders:50000}")
+    private int orderCount;
+
+    @Value("${app.synthetic.chats:5000}")
+    private int chatCount;
+
+    @Value("${app.synthetic.messages:50000}")
+    private long messageCount;
+
+    /**
+     * Exponente de Zipf: 0 es uniforme, valores mayores concentran más la popularidad.
+     */
+    @Value("${app.synthetic.zipf-exponent:1.1}")
+    private double zipfExponent;
+
+    @Value("${app.synthetic.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${app.synthetic.seed:42}")
+    private long seed;
+
+    private Random random;
+    private long now;
+
+    @Override
+    public void run(String... args) {
+        if (productRepository.count() > 0) {
+            log.info("Generador sintético omitido: la base de datos ya tiene productos");
+            return;
+        }
+        random = new Random(seed);
+        now = System.currentTimeMillis();
+        long start = System.nanoTime();
+
+        Ids users = insertUsers();
+        Map<Integer, Long> categories = insertCategories();
+        long marketPlaceId = marketPlace();
+        Zipf userActivity = new Zipf(users.size(), zipfExponent);
+        Zipf productPopularity = new Zipf(productCount, zipfExponent);
+
+        long[] priceCents = new long[productCount];
+        Ids products = insertProducts(users, userActivity, categories, marketPlaceId, priceCents);
+        insertLikes(users, products, userActivity, productPopularity);
+        insertRatings(users, products, userActivity, productPopularity);
+        insertComments(users, products, userActivity, productPopularity);
+        insertOrders(users, products, userActivity, productPopularity, priceCents);
+        insertChats(users, userActivity);
+
+        log.info("Datos sintéticos generados en {} s", (System.nanoTime() - start) / 1_000_000_000);
+    }
+
+    private Ids insertUsers() {
+        String password = passwordEncoder.encode("loadtest123");
+        Ids ids = new Ids(userCount);
+        try (Batch batch = new Batch("users",
+                "INSERT INTO users (id, username, email, password, first_name, last_name, cedula, address, role) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < userCount; i++) {
+                byte[] id = ids.next();
+                batch.add(id, "user" + i, "user" + i + "@loadtest.local", password, "Usuario", "Carga " + i,
+                        String.valueOf(100000000L + i), "Calle " + (i % 200) + " #" + (i % 97), RoleEnum.USER.name());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Inserta las categorías y devuelve su ID generado por posición.
+     */
+    private Map<Integer, Long> insertCategories() {
+        Map<String, Integer> positions = new HashMap<>();
+        try (Batch batch = new Batch("categories", "INSERT INTO categories (name, description) VALUES (?, ?)")) {
+            for (int i = 0; i < categoryCount; i++) {
+                String name = "Categoría " + i;
+                positions.put(name, i);
+                batch.add(name, "Categoría sintética " + i);
+            }
+        }
+        Map<Integer, Long> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM categories", rs -> {
+            Integer position = positions.get(rs.getString("name"));
+            if (position != null) {
+                ids.put(position, rs.getLong("id"));
+            }
+        });
+        return ids;
+    }
+
+    private long marketPlace() {
+        return marketPlaceRepository.findByNombre("AppMarket Demo").orElseGet(() -> {
+            MarketPlace marketPlace = new MarketPlace();
+            marketPlace.setNombre("AppMarket Demo");
+            return marketPlaceRepository.save(marketPlace);
+        }).getId();
+    }
+
+    private Ids insertProducts(Ids users, Zipf userActivity, Map<Integer, Long> categories,
+                               long marketPlaceId, long[] priceCents) {
+        Zipf categoryPopularity = new Zipf(categoryCount, zipfExponent);
+        Ids ids = new Ids(productCount);
+        try (Batch batch = new Batch("products",
+                "INSERT INTO products (id, name, description, image_url, price, available_quantity, category_id, "
+                        + "status, user_id, market_place_id, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)")) {
+            for (int i = 0; i < productCount; i++) {
+                byte[] id = ids.next();
+                String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)] + " " + i;
+                // Precios con distribución log-normal entre unos pocos y varios miles
+                long cents = Math.max(100, Math.round(Math.exp(random.nextGaussian() * 1.2 + 4.0) * 100));
+                priceCents[i] = cents;
+                double roll = random.nextDouble();
+                ProductStatus status = roll < 0.85 ? ProductStatus.ACTIVE
+                        : roll < 0.90 ? ProductStatus.AVAILABLE
+                        : roll < 0.96 ? ProductStatus.INACTIVE : ProductStatus.SOLD;
+                batch.add(id, name, "Producto sintético número " + i + " para pruebas de carga",
+                        "https://picsum.photos/seed/" + i + "/400/300", BigDecimal.valueOf(cents, 2),
+                        random.nextInt(50), categories.get(categoryPopularity.sample(random)), status.name(),
+                        users.get(userActivity.sample(random)), marketPlaceId);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Likes sin repetir (usuario, producto): primero se reparte cuántos da cada
+     * usuario según su actividad y luego se eligen productos distintos por popularidad.
+     */
+    private void insertLikes(Ids users, Ids products, Zipf userActivity, Zipf productPopularity) {
+        try (Batch batch = new Batch("product_likes",
+                "INSERT INTO product_likes (id, product_id, user_id) VALUES (?, ?, ?)")) {
+            Ids likeIds = new Ids(0);
+            forEachDistinctPair(likeCount, userActivity, productPopularity, (user, product) ->
+                    batch.add(likeIds.random(), products.get(product), users.get(user)));
+        }
+    }
+
+    private void insertRatings(Ids users, Ids products, Zipf userActivity, Zipf productPopularity) {
+        try (Batch batch = new Batch("product_ratings",
+                "INSERT INTO product_ratings (id, product_id, user_id, stars, created_at) VALUES (?, ?, ?, ?, ?)")) {
+            Ids ratingIds = new Ids(0);
+            forEachDistinctPair(ratingCount, userActivity, productPopularity, (user, product) ->
+                    batch.add(ratingIds.random(), products.get(product), users.get(user), stars(), pastTimestamp()));
+        }
+    }
+
+    private void insertComments(Ids users, Ids products, Zipf userActivity, Zipf productPopularity) {
+        Ids commentIds = new Ids(0);
+        try (Batch batch = new Batch("product_comments",
+                "INSERT INTO product_comments (id, comment_text, product_id, user_id) VALUES (?, ?, ?, ?)")) {
+            for (long i = 0; i < commentCount; i++) {
+                batch.add(commentIds.random(), COMMENTS[random.nextInt(COMMENTS.length)],
+                        products.get(productPopularity.sample(random)), users.get(userActivity.sample(random)));
+            }
+        }
+    }
+
+    private void insertOrders(Ids users, Ids products, Zipf userActivity, Zipf productPopularity, long[] priceCents) {
+        OrderStatus[] statuses = OrderStatus.values();
+        Ids ids = new Ids(0);
+        try (Batch orders = new Batch("orders",
+                "INSERT INTO orders (id, status, order_number, total_amount, user_id) VALUES (?, ?, ?, ?, ?)");
+             Batch items = new Batch("order_items",
+                "INSERT INTO order_items (id, quantity, unit_price, total_price, created_at, product_id, order_id) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?)", orders)) {
+            for (int i = 0; i < orderCount; i++) {
+                byte[] orderId = ids.random();
+                Timestamp createdAt = pastTimestamp();
+                int lines = 1 + random.nextInt(4);
+                List<Object[]> orderLines = new ArrayList<>(lines);
+                long total = 0;
+                for (int line = 0; line < lines; line++) {
+                    int product = productPopularity.sample(random);
+                    int quantity = 1 + random.nextInt(3);
+                    long lineTotal = priceCents[product] * quantity;
+                    total += lineTotal;
+                    orderLines.add(new Object[] { ids.random(), quantity, BigDecimal.valueOf(priceCents[product], 2),
+                            BigDecimal.valueOf(lineTotal, 2), createdAt, products.get(product), orderId });
+                }
+                orders.add(orderId, statuses[random.nextInt(statuses.length)].name(), "LT-" + i,
+                        BigDecimal.valueOf(total, 2), users.get(userActivity.sample(random)));
+                for (Object[] orderLine : orderLines) {
+                    items.add(orderLine);
+                }
+            }
+        }
+    }
+
+    private void insertChats(Ids users, Zipf userActivity) {
+        Ids chats = new Ids(chatCount);
+        Ids ids = new Ids(0);
+        try (Batch chatBatch = new Batch("chats", "INSERT INTO chats (id, name, created_at) VALUES (?, ?, ?)");
+             Batch participants = new Batch("chat_participants",
+                "INSERT INTO chat_participants (id, chat_id, user_id, joined_at) VALUES (?, ?, ?, ?)", chatBatch)) {
+            int[][] members = new int[chatCount][];
+            for (int i = 0; i < chatCount; i++) {
+                byte[] chatId = chats.next();
+                Timestamp createdAt = pastTimestamp();
+                int first = userActivity.sample(random);
+                int second = random.nextInt(users.size());
+                if (second == first) {
+                    second = (second + 1) % users.size();
+                }
+                members[i] = new int[] { first, second };
+                chatBatch.add(chatId, null, createdAt);
+                participants.add(ids.random(), chatId, users.get(first), createdAt);
+                participants.add(ids.random(), chatId, users.get(second), createdAt);
+            }
+            participants.flush();
+
+            Zipf chatActivity = new Zipf(chatCount, zipfExponent);
+            try (Batch messages = new Batch("messages",
+                    "INSERT INTO messages (id, chat_id, user_id, content, created_at) VALUES (?, ?, ?, ?, ?)")) {
+                for (long i = 0; i < messageCount; i++) {
+                    int chat = chatActivity.sample(random);
+                    int author = members[chat][random.nextInt(2)];
+                    messages.add(ids.random(), chats.get(chat), users.get(author),
+                            MESSAGES[random.nextInt(MESSAGES.length)], pastTimestamp());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reparte total pares (usuario, producto) sin repetir ninguno. Cada usuario
+     * recibe una cantidad proporcional a su actividad, limitada a una fracción
+     * del catálogo para que el muestreo por rechazo termine rápido.
+     */
+    private void forEachDistinctPair(long total, Zipf userActivity, Zipf productPopularity, PairConsumer consumer) {
+        if (total <= 0 || productCount == 0) {
+            return;
+        }
+        int users = userActivity.size();
+        int[] perUser = new int[users];
+        int cap = Math.max(1, productCount / 4);
+        for (long i = 0; i < total; i++) {
+            int user = userActivity.sample(random);
+            if (perUser[user] < cap) {
+                perUser[user]++;
+            }
+        }
+        Set<Integer> chosen = new HashSet<>();
+        for (int user = 0; user < users; user++) {
+            chosen.clear();
+            int attempts = 0;
+            while (chosen.size() < perUser[user] && attempts++ < perUser[user] * 20) {
+                int product = productPopularity.sample(random);
+                if (chosen.add(product)) {
+                    consumer.accept(user, product);
+                }
+            }
+        }
+    }
+
+    private int stars() {
+        double roll = random.nextDouble();
+        for (int i = 0; i < STAR_CDF.length; i++) {
+            if (roll < STAR_CDF[i]) {
+                return i + 1;
+            }
+        }
+        return 5;
+    }
+
+    /**
+     * Fecha aleatoria dentro del último año.
+     */
+    private Timestamp pastTimestamp() {
+        return new Timestamp(now - (long) (random.nextDouble() * 365 * DAY_MS));
+    }
+
+    private interface PairConsumer {
+        void accept(int user, int product);
+    }
+
+    /**
+     * Muestreo de Zipf sobre n elementos: el elemento k tiene peso 1/(k+1)^s.
+     * Usa la distribución acumulada y búsqueda binaria, O(log n) por muestra.
+     */
+    private static final class Zipf {
+        private final double[] cdf;
+
+        Zipf(int n, double exponent) {
+            cdf = new double[n];
+            double sum = 0;
+            for (int k = 0; k < n; k++) {
+                sum += 1.0 / Math.pow(k + 1, exponent);
+                cdf[k] = sum;
+            }
+        }
+
+        int size() {
+            return cdf.length;
+        }
+
+        int sample(Random random) {
+            double target = random.nextDouble() * cdf[cdf.length - 1];
+            int index = Arrays.binarySearch(cdf, target);
+            return Math.min(cdf.length - 1, index >= 0 ? index : -index - 1);
+        }
+    }
+
+    /**
+     * UUID tipo 4 generados con el Random sembrado, guardados como pares de long
+     * para no tener un objeto por fila. Se devuelven en el formato BINARY(16).
+     */
+    private final class Ids {
+        private final long[] high;
+        private final long[] low;
+        private int size;
+
+        Ids(int capacity) {
+            high = new long[capacity];
+            low = new long[capacity];
+        }
+
+        /**
+         * Genera un ID y lo guarda para referenciarlo después.
+         */
+        byte[] next() {
+            byte[] id = random();
+            ByteBuffer buffer = ByteBuffer.wrap(id);
+            high[size] = buffer.getLong();
+            low[size] = buffer.getLong();
+            size++;
+            return id;
+        }
+
+        /**
+         * Genera un ID que no se guarda (filas que nadie referencia).
+         */
+        byte[] random() {
+            long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+            long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+            return ByteBuffer.allocate(16).putLong(msb).putLong(lsb).array();
+        }
+
+        byte[] get(int index) {
+            return ByteBuffer.allocate(16).putLong(high[index]).putLong(low[index]).array();
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Acumula filas y las envía con batchUpdate cada batchSize filas.
+     * Si depende de otra tabla (líneas de una orden, participantes de un chat),
+     * vacía primero el lote de esa tabla para respetar las claves foráneas.
+     */
+    private final class Batch implements AutoCloseable {
+        private final String table;
+        private final String sql;
+        private final Batch parent;
+        private final List<Object[]> rows = new ArrayList<>();
+        private long written;
+        private final long start = System.nanoTime();
+
+        Batch(String table, String sql) {
+            this(table, sql, null);
+        }
+
+        Batch(String table, String sql, Batch parent) {
+            this.table = table;
+            this.sql = sql;
+            this.parent = parent;
+        }
+
+        void add(Object... row) {
+            rows.add(row);
+            if (rows.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (parent != null) {
+                parent.flush();
+            }
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(sql, rows);
+                written += rows.size();
+                rows.clear();
+            }
+        }
+
+        @Override
+        public void close() {
+            flush();
+            log.info("Generadas {} filas en {} en {} ms", written, table, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
@@ -6,15 +6,21 @@ package co.edu.uniquindio.ProyectoFinalp3.controllers;
 
 import co.edu.uniquindio.ProyectoFinalp3.dto.OrderItemRequest;
 import co.edu.uniquindio.ProyectoFinalp3.enums.OrderStatus;
+import co.edu.uniquindio.ProyectoFinalp3.exceptions.ProductoSinUnidadesDisponiblesException;
 import co.edu.uniquindio.ProyectoFinalp3.models.Order;
+import co.edu.uniquindio.ProyectoFinalp3.services.FlashSaleService;
 import co.edu.uniquindio.ProyectoFinalp3.services.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -23,6 +29,9 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private FlashSaleService flashSaleService;
+
     @PostMapping("/create")
     public ResponseEntity<Order> createOrder(@RequestParam String username, @RequestBody List<OrderItemRequest> orderItems) {
         try {
@@ -43,9 +52,6 @@ public class OrderController {
     public ResponseEntity<Order> updateOrderStatus(@PathVariable UUID orderId, @RequestParam OrderStatus status) {
         try {
             Order updatedOrder = orderService.updateOrderStatus(orderId, status);
-            if (updatedOrder == null) {
-                return ResponseEntity.noContent().build(); // Orden cancelada y eliminada
-            }
             return ResponseEntity.ok(updatedOrder);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(null);
@@ -61,4 +67,71 @@ public class OrderController {
             return ResponseEntity.badRequest().body(null);
         }
     }
+
+    /**
+     * Activa la oferta relámpago de un producto con su stock actual.
+     */
+    @PutMapping("/flash/{productId}")
+    public ResponseEntity<Map<String, Object>> enableFlashSale(@PathVariable UUID productId) {
+        try {
+            int remaining = flashSaleService.enable(productId);
+            return ResponseEntity.ok(Map.of("productId", productId, "remaining", remaining));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Unidades que quedan en la oferta relámpago del producto.
+     */
+    @GetMapping("/flash/{productId}")
+    public ResponseEntity<Map<String, Object>> getFlashSale(@PathVariable UUID productId) {
+        Integer remaining = flashSaleService.remaining(productId);
+        if (remaining == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("productId", productId, "remaining", remaining));
+    }
+
+    /**
+     * Desactiva la oferta relámpago; las compras ya aceptadas se terminan de guardar.
+     */
+    @DeleteMapping("/flash/{productId}")
+    public ResponseEntity<Void> disableFlashSale(@PathVariable UUID productId) {
+        if (flashSaleService.disable(productId)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Compra en oferta relámpago. Responde 409 si está agotada; la orden
+     * creada queda pendiente de pago como las normales.
+     */
+    @PostMapping("/flash/{productId}")
+    public CompletableFuture<ResponseEntity<Order>> flashPurchase(
+            @PathVariable UUID productId,
+            @RequestParam String username,
+            @RequestParam(defaultValue = "1") int quantity) {
+        try {
+            return flashSaleService.purchase(productId, username, quantity)
+                    .handle((order, error) -> {
+                        if (error == null) {
+                            return ResponseEntity.ok(order);
+                        }
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        if (cause instanceof ProductoSinUnidadesDisponiblesException) {
+                            return ResponseEntity.status(HttpStatus.CONFLICT).<Order>body(null);
+                        }
+                        if (cause instanceof IllegalArgumentException) {
+                            return ResponseEntity.badRequest().<Order>body(null);
+                        }
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).<Order>body(null);
+                    });
+        } catch (ProductoSinUnidadesDisponiblesException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT).body(null));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(null));
+        }
+    }
 }
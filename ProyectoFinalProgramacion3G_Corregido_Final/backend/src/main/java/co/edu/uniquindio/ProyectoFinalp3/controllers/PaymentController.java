@@ -36,7 +36,12 @@ public class PaymentController {
         @RequestParam BigDecimal amount,
         @RequestParam PaymentType paymentType,
         @RequestParam PaymentMethod paymentMethod) {
-    Payment payment = paymentService.processPayment(username, orderId, amount, paymentType, paymentMethod);
-    return ResponseEntity.ok(payment);
+    try {
+        Payment payment = paymentService.processPayment(username, orderId, amount, paymentType, paymentMethod);
+        return ResponseEntity.ok(payment);
+    } catch (IllegalArgumentException e) {
+        // Usuario u orden inexistente, monto insuficiente o reserva vencida
+        return ResponseEntity.badRequest().body(null);
+    }
 }
 }
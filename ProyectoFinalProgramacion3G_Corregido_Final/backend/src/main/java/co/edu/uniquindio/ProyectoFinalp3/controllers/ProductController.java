@@ -4,6 +4,14 @@
  */
 package co.edu.uniquindio.ProyectoFinalp3.controllers;
 
+import co.edu.uniquindio.ProyectoFinalp3.catalog.CatalogVersions;
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductBulkUpdate;
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductChanges;
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductPatch;
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductSummary;
+import co.edu.uniquindio.ProyectoFinalp3.dto.RatingSummary;
+import co.edu.uniquindio.ProyectoFinalp3.dto.SearchPage;
+import co.edu.uniquindio.ProyectoFinalp3.exceptions.ProductoNoExistenteException;
 import co.edu.uniquindio.ProyectoFinalp3.models.MarketPlace;
 import co.edu.uniquindio.ProyectoFinalp3.models.Category;
 import co.edu.uniquindio.ProyectoFinalp3.repository.MarketPlaceRepository;
@@ -14,18 +22,29 @@ import co.edu.uniquindio.ProyectoFinalp3.models.User;
 import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
 import co.edu.uniquindio.ProyectoFinalp3.models.Product;
 import co.edu.uniquindio.ProyectoFinalp3.models.ProductComment;
+import co.edu.uniquindio.ProyectoFinalp3.search.FacetFilter;
+import co.edu.uniquindio.ProyectoFinalp3.search.Suggestion;
 import co.edu.uniquindio.ProyectoFinalp3.services.ProductCommentService;
 import co.edu.uniquindio.ProyectoFinalp3.services.ProductLikeService;
 import co.edu.uniquindio.ProyectoFinalp3.services.ProductService;
+import co.edu.uniquindio.ProyectoFinalp3.services.ProductStreamService;
+import co.edu.uniquindio.ProyectoFinalp3.services.ProductViewService;
+import co.edu.uniquindio.ProyectoFinalp3.services.ProductImportService;
 import co.edu.uniquindio.ProyectoFinalp3.services.ProductRatingService;
 import co.edu.uniquindio.ProyectoFinalp3.services.ImageStorageService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import jakarta.servlet.http.HttpServletRequest;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -88,6 +107,22 @@ public class ProductController {
     @Autowired
     private ProductRatingService productRatingService;
 
+    /** Streams SSE de cambios de productos */
+    @Autowired
+    private ProductStreamService productStreamService;
+
+    /** Contador de vistas de productos */
+    @Autowired
+    private ProductViewService productViewService;
+
+    /** Importación masiva de productos */
+    @Autowired
+    private ProductImportService productImportService;
+
+    /** Versiones del catálogo usadas como ETag */
+    @Autowired
+    private CatalogVersions catalogVersions;
+
     /**
      * Crea un nuevo producto en el sistema.
      * 
@@ -128,7 +163,7 @@ public class ProductController {
                         Category newCategory = new Category();
                         newCategory.setName(categoryName);
                         newCategory.setDescription("Categoría creada automáticamente");
-                        return categoryRepository.save(newCategory);
+                        return saveCategory(newCategory);
                     });
                 product.setCategory(category);
                 System.out.println("Categoría asignada: " + category.getName());
@@ -141,7 +176,7 @@ public class ProductController {
                         Category newCategory = new Category();
                         newCategory.setName(defaultCategoryName);
                         newCategory.setDescription("Categoría por defecto para productos sin categoría específica");
-                        return categoryRepository.save(newCategory);
+                        return saveCategory(newCategory);
                     });
                 product.setCategory(defaultCategory);
                 System.out.println("Categoría asignada por defecto: " + defaultCategory.getName());
@@ -180,13 +215,81 @@ public class ProductController {
     }
 
     /**
-     * Obtiene todos los productos disponibles en el sistema.
+     * Obtiene los productos del sistema por páginas.
      * 
-     * @return ResponseEntity con la lista de todos los productos
+     * @param after Cursor opaco devuelto en la página anterior (opcional)
+     * @param limit Tamaño de página (opcional, con tope máximo)
+     * @return ResponseEntity con la página de productos y el cursor siguiente
      */
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllProducts());
+    public ResponseEntity<?> getAllProducts(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(productService.getAllProducts(after, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Consulta varios productos por ID en una sola petición (carrito, órdenes).
+     * Los productos se devuelven en el orden pedido y los IDs inexistentes se
+     * informan aparte en "missing".
+     * 
+     * @param ids Lista de IDs de productos (máximo configurable, por defecto 500)
+     * @return ResponseEntity con los productos encontrados y los IDs faltantes
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> getProductsBatch(@RequestBody List<UUID> ids) {
+        try {
+            return ResponseEntity.ok(productService.getProductsBatch(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Calificaciones y likes de varios productos en una sola petición, para las
+     * tarjetas del catálogo (en lugar de pedir resumen y likes por tarjeta).
+     *
+     * @param ids Lista de IDs de productos (máximo configurable, por defecto 500)
+     * @return ResponseEntity con promedio, conteo de calificaciones y likes por producto
+     */
+    @PostMapping("/engagement")
+    public ResponseEntity<?> getProductsEngagement(@RequestBody List<UUID> ids) {
+        try {
+            return ResponseEntity.ok(productService.getEngagement(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Importa productos en bloque desde un archivo CSV o NDJSON enviado como cuerpo.
+     * El cuerpo se procesa en streaming y se inserta por lotes, así que admite
+     * archivos grandes sin cargarlos completos en memoria.
+     *
+     * @param username Vendedor dueño de los productos importados
+     * @param format csv o ndjson; si falta se deduce del Content-Type
+     * @param request Petición con el archivo en el cuerpo
+     * @return ResponseEntity con filas importadas, rechazadas y sus errores
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importProducts(@RequestParam String username,
+                                            @RequestParam(required = false) String format,
+                                            HttpServletRequest request) {
+        if (format == null) {
+            String contentType = request.getContentType();
+            format = contentType != null && contentType.toLowerCase().contains("csv") ? "csv" : "ndjson";
+        }
+        try {
+            return ResponseEntity.ok(productImportService.importProducts(request.getInputStream(), format, username));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("No se pudo leer el archivo: " + e.getMessage());
+        }
     }
 
     /**
@@ -196,17 +299,45 @@ public class ProductController {
      * @return ResponseEntity con el producto encontrado o mensaje de error
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getProductById(@PathVariable UUID id) {
+    public ResponseEntity<?> getProductById(@PathVariable UUID id, WebRequest request) {
+        // ETag por versión del producto: si el cliente ya tiene esta versión se responde 304 sin consultar la base.
+        // La etiqueta es predecible e If-None-Match: * coincide siempre: solo se responde 304 a productos que existen
+        String etag = catalogVersions.productTag(id);
+        if (productService.isKnownProduct(id) && request.checkNotModified(etag)) {
+            productViewService.recordRepeatView(id);
+            return null;
+        }
         Optional<Product> product = productService.getProductById(id);
-        return product.isPresent() ? ResponseEntity.ok(product.get()) 
-                                   : ResponseEntity.status(HttpStatus.NOT_FOUND).body("Producto no encontrado");
+        if (product.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Producto no encontrado");
+        }
+        productViewService.recordView(id);
+        return ResponseEntity.ok().eTag(etag).body(product.get());
+    }
+
+    /**
+     * Estadísticas de un producto: vistas totales, incluidas las que aún no se guardaron.
+     * 
+     * @param id Identificador único del producto
+     * @return ResponseEntity con las vistas o 404 si el producto no existe
+     */
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<Map<String, Object>> getProductStats(@PathVariable UUID id) {
+        Optional<Long> views = productViewService.getViewCount(id);
+        if (views.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        Map<String, Object> stats = new java.util.HashMap<>();
+        stats.put("productId", id);
+        stats.put("views", views.get());
+        return ResponseEntity.ok(stats);
     }
 
     /**
-     * Resumen de calificaciones del producto (promedio y conteo)
+     * Resumen de calificaciones del producto (promedio, conteo e histograma)
      */
     @GetMapping("/{productId}/ratings/summary")
-    public ResponseEntity<Map<String, Object>> getRatingSummary(@PathVariable UUID productId) {
+    public ResponseEntity<RatingSummary> getRatingSummary(@PathVariable UUID productId) {
         return ResponseEntity.ok(productRatingService.getSummary(productId));
     }
 
@@ -220,7 +351,7 @@ public class ProductController {
             @RequestParam(required = false) UUID userId,
             @RequestParam int stars) {
         try {
-            Map<String, Object> summary;
+            RatingSummary summary;
             if (username != null && !username.isBlank()) {
                 summary = productRatingService.submitByUsername(productId, username, stars);
             } else {
@@ -246,7 +377,11 @@ public class ProductController {
      * Disponibilidad dinámica: devuelve unidades disponibles y bandera disponible.
      */
     @GetMapping("/{productId}/availability")
-    public ResponseEntity<Map<String, Object>> getAvailability(@PathVariable UUID productId) {
+    public ResponseEntity<Map<String, Object>> getAvailability(@PathVariable UUID productId, WebRequest request) {
+        String etag = catalogVersions.productTag(productId);
+        if (productService.isKnownProduct(productId) && request.checkNotModified(etag)) {
+            return null;
+        }
         Optional<Product> productOpt = productService.getProductById(productId);
         if (productOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
@@ -258,7 +393,25 @@ public class ProductController {
         res.put("availableQuantity", qty);
         res.put("available", available);
         res.put("status", p.getStatus());
-        return ResponseEntity.ok(res);
+        return ResponseEntity.ok().eTag(etag).body(res);
+    }
+
+    /**
+     * Cambia precio, estado o stock de varios productos en una sola petición
+     * (por ejemplo, reajustar precios o desactivar el inventario de un vendedor).
+     *
+     * @param request IDs y campos a cambiar; los campos nulos no se modifican
+     * @param username Vendedor opcional; si se indica, solo se modifican sus productos
+     * @return ResponseEntity con el número de productos modificados y los IDs omitidos
+     */
+    @PutMapping("/bulk")
+    public ResponseEntity<?> bulkUpdateProducts(@RequestBody ProductBulkUpdate request,
+                                                @RequestParam(required = false) String username) {
+        try {
+            return ResponseEntity.ok(productService.bulkUpdate(request, username));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
     }
 
     @PutMapping("/{id}")
@@ -272,7 +425,7 @@ public class ProductController {
                         Category newCategory = new Category();
                         newCategory.setName(categoryName);
                         newCategory.setDescription("Categoría creada automáticamente");
-                        return categoryRepository.save(newCategory);
+                        return saveCategory(newCategory);
                     });
                 product.setCategory(category);
             }
@@ -280,11 +433,46 @@ public class ProductController {
             Product updatedProduct = productService.updateProduct(id, product);
             return updatedProduct != null ? ResponseEntity.ok(updatedProduct)
                                           : ResponseEntity.status(HttpStatus.NOT_FOUND).body("Producto no encontrado o no se pudo actualizar");
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("El producto fue modificado por otra petición; recargue la versión actual");
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error al actualizar el producto: " + e.getMessage());
         }
     }
 
+    /**
+     * Actualiza solo los campos enviados de un producto con un UPDATE dirigido.
+     * Si el cuerpo incluye "version", el cambio se rechaza con 409 cuando otro
+     * vendedor o proceso ya modificó el producto.
+     *
+     * @param id Identificador del producto
+     * @param patch Campos a modificar; los ausentes se conservan
+     * @return ResponseEntity con el producto actualizado (incluye la versión nueva)
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchProduct(@PathVariable UUID id, @RequestBody ProductPatch patch) {
+        try {
+            Category category = null;
+            if (patch.getCategory() != null && !patch.getCategory().isBlank()) {
+                String categoryName = patch.getCategory().trim();
+                category = categoryRepository.findByName(categoryName)
+                    .orElseGet(() -> {
+                        Category newCategory = new Category();
+                        newCategory.setName(categoryName);
+                        newCategory.setDescription("Categoría creada automáticamente");
+                        return saveCategory(newCategory);
+                    });
+            }
+            Product patched = productService.patchProduct(id, patch, category);
+            return patched != null ? ResponseEntity.ok(patched)
+                                   : ResponseEntity.status(HttpStatus.NOT_FOUND).body("Producto no encontrado");
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteProduct(@PathVariable UUID id) {
         return productService.deleteProduct(id) ? ResponseEntity.ok("Producto eliminado correctamente")
@@ -292,31 +480,135 @@ public class ProductController {
     }
 
     @GetMapping("/user/{username}")
-    public ResponseEntity<List<Product>> getProductsByUsername(@PathVariable String username) {
-        return ResponseEntity.ok(productService.getProductsByUsername(username));
+    public ResponseEntity<?> getProductsByUsername(
+            @PathVariable String username,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(productService.getProductsByUsername(username, after, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
     }
 
     @GetMapping("/category/{categoryName}")
-    public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable String categoryName) {
-        return ResponseEntity.ok(productService.getProductsByCategoryName(categoryName));
+    public ResponseEntity<?> getProductsByCategory(
+            @PathVariable String categoryName,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(productService.getProductsByCategoryName(categoryName, after, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
     }
 
     /**
-     * Busca productos por término de búsqueda en nombre y descripción.
+     * Busca productos por término en nombre, categoría y descripción.
+     * Los resultados se ordenan por relevancia usando el índice en memoria.
+     * 
+     * Con mode=fuzzy compara trigramas del nombre y tolera errores de escritura.
      * 
      * @param q Término de búsqueda (query parameter)
-     * @return ResponseEntity con la lista de productos que coinciden con la búsqueda
+     * @param mode Modo de búsqueda: ranked (por defecto) o fuzzy
+     * @param offset Número de resultados a saltar (opcional)
+     * @param limit Tamaño de página (opcional, con tope máximo)
+     * @return ResponseEntity con la página de productos y el total de coincidencias
      */
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam(name = "q", required = false) String searchTerm) {
+    public ResponseEntity<SearchPage<ProductSummary>> searchProducts(
+            @RequestParam(name = "q", required = false) String searchTerm,
+            @RequestParam(required = false) String mode,
+            @RequestParam(required = false) Integer offset,
+            @RequestParam(required = false) Integer limit) {
         try {
-            List<Product> products = productService.searchActiveProducts(searchTerm);
-            return ResponseEntity.ok(products);
+            return ResponseEntity.ok(productService.searchActiveProducts(searchTerm, mode, offset, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
 
+    /**
+     * Búsqueda facetada para la barra de filtros del catálogo.
+     * Devuelve la página de resultados y, en la misma respuesta, cuántos productos
+     * hay por categoría, por estado y por rango de precio.
+     * 
+     * @param searchTerm Texto de búsqueda (opcional)
+     * @param categories Categorías seleccionadas (opcional, se puede repetir)
+     * @param statuses Estados seleccionados (opcional, por defecto ACTIVE y AVAILABLE)
+     * @param minPrice Precio mínimo incluido (opcional)
+     * @param maxPrice Precio máximo excluido (opcional)
+     * @param sort relevance (por defecto), price_asc, price_desc o name_asc (opcional)
+     * @param offset Número de resultados a saltar (opcional)
+     * @param limit Tamaño de página (opcional, con tope máximo)
+     * @return ResponseEntity con la página de productos y sus facetas
+     */
+    @GetMapping("/search/facets")
+    public ResponseEntity<?> facetedSearch(
+            @RequestParam(name = "q", required = false) String searchTerm,
+            @RequestParam(name = "category", required = false) List<String> categories,
+            @RequestParam(name = "status", required = false) List<ProductStatus> statuses,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Integer offset,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            FacetFilter filter = new FacetFilter(categories, statuses, minPrice, maxPrice);
+            return ResponseEntity.ok(productService.facetedSearch(searchTerm, filter, sort, offset, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Stream en tiempo real (Server-Sent Events) con los cambios de stock, estado y precio
+     * de un producto. Reemplaza el sondeo periódico de /availability.
+     * 
+     * @param productId ID del producto a seguir
+     * @return Conexión SSE que recibe eventos "product"
+     */
+    @GetMapping(value = "/{productId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamProduct(@PathVariable UUID productId) {
+        try {
+            return ResponseEntity.ok(productStreamService.subscribeProduct(productId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * Stream en tiempo real con los cambios de los productos de una categoría.
+     * 
+     * @param categoryName Nombre de la categoría a seguir
+     * @return Conexión SSE que recibe eventos "product"
+     */
+    @GetMapping(value = "/category/{categoryName}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamCategory(@PathVariable String categoryName) {
+        try {
+            return ResponseEntity.ok(productStreamService.subscribeCategory(categoryName));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * Autocompletado: sugiere nombres de productos activos y categorías por prefijo.
+     * Se responde desde memoria, sin consultar la base de datos.
+     * 
+     * @param prefix Texto escrito por el usuario
+     * @param limit Número de sugerencias (opcional, máximo 10)
+     * @return ResponseEntity con las sugerencias ordenadas por popularidad
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Suggestion>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productService.suggest(prefix, limit));
+    }
+
     @PostMapping("/add-demo-products")
     public ResponseEntity<?> addDemoProducts() {
         try {
@@ -347,27 +639,27 @@ public class ProductController {
             // Crear categorías
             Category electronicsCategory = categoryRepository.findByName("Electrónicos").orElseGet(() -> {
                 Category category = new Category("Electrónicos", "Dispositivos y gadgets electrónicos", "https://cdn-icons-png.flaticon.com/512/3659/3659899.png");
-                return categoryRepository.save(category);
+                return saveCategory(category);
             });
 
             Category fashionCategory = categoryRepository.findByName("Moda").orElseGet(() -> {
                 Category category = new Category("Moda", "Ropa, zapatos y accesorios", "https://cdn-icons-png.flaticon.com/512/892/892458.png");
-                return categoryRepository.save(category);
+                return saveCategory(category);
             });
 
             Category homeCategory = categoryRepository.findByName("Hogar").orElseGet(() -> {
                 Category category = new Category("Hogar", "Artículos para el hogar y decoración", "https://cdn-icons-png.flaticon.com/512/1946/1946488.png");
-                return categoryRepository.save(category);
+                return saveCategory(category);
             });
 
             Category sportsCategory = categoryRepository.findByName("Deportes").orElseGet(() -> {
                 Category category = new Category("Deportes", "Equipos y accesorios deportivos", "https://cdn-icons-png.flaticon.com/512/857/857418.png");
-                return categoryRepository.save(category);
+                return saveCategory(category);
             });
 
             Category booksCategory = categoryRepository.findByName("Libros").orElseGet(() -> {
                 Category category = new Category("Libros", "Libros y material educativo", "https://cdn-icons-png.flaticon.com/512/2232/2232688.png");
-                return categoryRepository.save(category);
+                return saveCategory(category);
             });
 
             List<Product> createdProducts = new ArrayList<>();
@@ -485,9 +777,46 @@ public class ProductController {
         }
     }
 
+    /**
+     * Productos en tendencia (tira "tendencias" de la portada).
+     * Se calcula en memoria a partir de vistas, likes y unidades vendidas recientes.
+     * 
+     * @param limit Número de productos (opcional, por defecto 10)
+     * @return ResponseEntity con los productos de mayor actividad reciente
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<List<ProductSummary>> getTrendingProducts(@RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productService.getTrending(limit));
+    }
+
+    /**
+     * Sincronización incremental: productos activos que cambiaron desde una versión.
+     * Devuelve altas o cambios ("upserts"), bajas ("removed") y la versión a usar
+     * en la siguiente llamada; con "reset" en true el cliente debe recargar /active.
+     * 
+     * @param since Última versión conocida por el cliente (opcional)
+     * @return ResponseEntity con los cambios
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ProductChanges> getChanges(@RequestParam(required = false) Long since) {
+        return ResponseEntity.ok(productService.getChangesSince(since));
+    }
+
     @GetMapping("/active")
-    public ResponseEntity<List<Product>> getActiveProducts() {
-        return ResponseEntity.ok(productService.getActiveProducts(ProductStatus.ACTIVE));  
+    public ResponseEntity<?> getActiveProducts(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        // ETag del catálogo completo: cambia con cualquier alta, cambio o baja de productos
+        String etag = catalogVersions.catalogTag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok().eTag(etag).body(productService.getActiveProducts(after, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
     }
 
     // Endpoint para subir imágenes de productos
@@ -522,8 +851,12 @@ public class ProductController {
 
     // Endpoint para obtener todas las categorías
     @GetMapping("/categories")
-    public ResponseEntity<List<Category>> getAllCategories() {
-        return ResponseEntity.ok(categoryRepository.findAll());
+    public ResponseEntity<List<Category>> getAllCategories(WebRequest request) {
+        String etag = catalogVersions.categoriesTag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(categoryRepository.findAll());
     }
 
     // Endpoint para crear una nueva categoría
@@ -533,7 +866,7 @@ public class ProductController {
             if (categoryRepository.existsByName(category.getName())) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("La categoría ya existe");
             }
-            Category createdCategory = categoryRepository.save(category);
+            Category createdCategory = saveCategory(category);
             return ResponseEntity.ok(createdCategory);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error al crear categoría: " + e.getMessage());
@@ -562,7 +895,7 @@ public class ProductController {
             String imageUrl = imageStorageService.storeImage(image, "categories");
             category.setImageUrl(imageUrl);
             
-            Category updatedCategory = categoryRepository.save(category);
+            Category updatedCategory = saveCategory(category);
             return ResponseEntity.ok(updatedCategory);
             
         } catch (Exception e) {
@@ -582,7 +915,7 @@ public class ProductController {
             if (updates.getName() != null && !updates.getName().isBlank()) category.setName(updates.getName());
             if (updates.getDescription() != null) category.setDescription(updates.getDescription());
             if (updates.getImageUrl() != null) category.setImageUrl(updates.getImageUrl());
-            Category saved = categoryRepository.save(category);
+            Category saved = saveCategory(category);
             return ResponseEntity.ok(saved);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error al actualizar categoría: " + e.getMessage());
@@ -598,6 +931,7 @@ public class ProductController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Categoría no encontrada");
             }
             categoryRepository.deleteById(id);
+            catalogVersions.categoriesChanged();
             return ResponseEntity.ok("Categoría eliminada");
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error al eliminar categoría: " + e.getMessage());
@@ -608,10 +942,15 @@ public class ProductController {
     @PutMapping("/update-test-images")
     public ResponseEntity<?> updateTestProductImages() {
         try {
-            List<Product> activeProducts = productService.getActiveProducts(ProductStatus.ACTIVE);
+            // Solo se cargan completas las entidades de los productos de prueba
+            List<String> testNames = List.of("Laptop", "Teléfono", "Auriculares", "Cámara");
+            List<UUID> testIds = productService.getActiveCatalog().stream()
+                    .filter(summary -> testNames.contains(summary.getName()))
+                    .map(ProductSummary::getId)
+                    .toList();
             List<Product> updatedProducts = new ArrayList<>();
             
-            for (Product product : activeProducts) {
+            for (Product product : productService.getProductsByIds(testIds)) {
                 if (product.getName().equals("Laptop")) {
                     product.setImageUrl("/images/laptop.svg");
                 } else if (product.getName().equals("Teléfono")) {
@@ -657,7 +996,13 @@ public class ProductController {
             @PathVariable UUID productId,
             @RequestParam UUID userId) {
 
-        boolean liked = productLikeService.addLikeToProduct(productId, userId);
+        boolean liked;
+        try {
+            liked = productLikeService.addLikeToProduct(productId, userId);
+        } catch (ProductoNoExistenteException | IllegalArgumentException e) {
+            // Producto o usuario inexistente
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
         if (liked) {
             return ResponseEntity.ok("Like agregado exitosamente.");
         } else {
@@ -665,10 +1010,56 @@ public class ProductController {
         }
     }
 
+    /**
+     * Quita el like del usuario.
+     */
+    @DeleteMapping("/{productId}/likes")
+    public ResponseEntity<String> removeLike(
+            @PathVariable UUID productId,
+            @RequestParam UUID userId) {
+
+        try {
+            if (productLikeService.removeLikeFromProduct(productId, userId)) {
+                return ResponseEntity.ok("Like eliminado exitosamente.");
+            }
+        } catch (ProductoNoExistenteException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body("El usuario no ha dado like a este producto.");
+    }
+
+    /**
+     * Da o quita el like según el estado actual y devuelve el resultado con el nuevo conteo.
+     */
+    @PostMapping("/{productId}/likes/toggle")
+    public ResponseEntity<Map<String, Object>> toggleLike(
+            @PathVariable UUID productId,
+            @RequestParam UUID userId) {
+
+        boolean liked;
+        try {
+            liked = productLikeService.toggleLike(productId, userId);
+        } catch (ProductoNoExistenteException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.ok(Map.of(
+                "liked", liked,
+                "count", productLikeService.getLikesCountByProduct(productId)));
+    }
+
     // Endpoint para obtener la cantidad de "likes" de un producto
     @GetMapping("/{productId}/likes/count")
     public ResponseEntity<Long> getProductLikesCount(@PathVariable UUID productId) {
         long likeCount = productLikeService.getLikesCountByProduct(productId);
         return ResponseEntity.ok(likeCount);
     }
+
+    /**
+     * Guarda una categoría y cambia la versión de categorías para invalidar sus ETag.
+     */
+    private Category saveCategory(Category category) {
+        Category saved = categoryRepository.save(category);
+        catalogVersions.categoriesChanged();
+        return saved;
+    }
 }
@@ -0,0 +1,27 @@
+/**
+ * DTO de resultado de actualización masiva.
+ * Indica cuántos productos cambiaron y cuáles no se encontraron.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Resultado de aplicar una actualización masiva.
+ * En "skipped" van los IDs inexistentes o que no pertenecen al vendedor indicado.
+ */
+public class BulkUpdateResult {
+
+    private final int updated;
+    private final List<UUID> skipped;
+
+    public BulkUpdateResult(int updated, List<UUID> skipped) {
+        this.updated = updated;
+        this.skipped = skipped;
+    }
+
+    public int getUpdated() { return updated; }
+
+    public List<UUID> getSkipped() { return skipped; }
+}
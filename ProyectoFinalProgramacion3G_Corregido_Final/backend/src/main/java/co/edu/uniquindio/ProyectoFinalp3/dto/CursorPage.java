@@ -0,0 +1,57 @@
+/**
+ * DTO de página por cursor.
+ * Devuelve un bloque de resultados y el cursor para pedir el siguiente.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Página de resultados con paginación por cursor (keyset).
+ * El cursor es opaco para el cliente: codifica el último ID entregado.
+ * Si nextCursor es null no hay más resultados.
+ *
+ * @param <T> Tipo de los elementos de la página
+ */
+public class CursorPage<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() { return items; }
+
+    public String getNextCursor() { return nextCursor; }
+
+    /**
+     * Codifica un ID como cursor opaco en Base64 URL-safe.
+     */
+    public static String encodeCursor(UUID id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor recibido del cliente. Devuelve null si no se envía.
+     *
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    public static UUID decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            return UUID.fromString(raw);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+    }
+}
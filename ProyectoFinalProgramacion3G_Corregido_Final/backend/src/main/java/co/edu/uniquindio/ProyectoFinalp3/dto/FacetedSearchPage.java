@@ -0,0 +1,73 @@
+/**
+ * DTO de búsqueda facetada.
+ * Devuelve la página de resultados junto con los conteos de cada faceta.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Página de resultados con conteos por categoría, estado y rango de precio,
+ * pensada para pintar la barra de filtros del catálogo en una sola petición.
+ *
+ * @param <T> Tipo de los elementos de la página
+ */
+public class FacetedSearchPage<T> extends SearchPage<T> {
+
+    private final List<FacetCount> categories;
+    private final List<FacetCount> statuses;
+    private final List<PriceRange> priceRanges;
+
+    public FacetedSearchPage(List<T> items, int total, int offset, int limit,
+                             List<FacetCount> categories, List<FacetCount> statuses, List<PriceRange> priceRanges) {
+        super(items, total, offset, limit);
+        this.categories = categories;
+        this.statuses = statuses;
+        this.priceRanges = priceRanges;
+    }
+
+    public List<FacetCount> getCategories() { return categories; }
+
+    public List<FacetCount> getStatuses() { return statuses; }
+
+    public List<PriceRange> getPriceRanges() { return priceRanges; }
+
+    /**
+     * Valor de una faceta y número de productos que lo tienen.
+     */
+    public static class FacetCount {
+        private final String value;
+        private final int count;
+
+        public FacetCount(String value, int count) {
+            this.value = value;
+            this.count = count;
+        }
+
+        public String getValue() { return value; }
+
+        public int getCount() { return count; }
+    }
+
+    /**
+     * Rango de precio [min, max); min o max son null en los extremos abiertos.
+     */
+    public static class PriceRange {
+        private final BigDecimal min;
+        private final BigDecimal max;
+        private final int count;
+
+        public PriceRange(BigDecimal min, BigDecimal max, int count) {
+            this.min = min;
+            this.max = max;
+            this.count = count;
+        }
+
+        public BigDecimal getMin() { return min; }
+
+        public BigDecimal getMax() { return max; }
+
+        public int getCount() { return count; }
+    }
+}
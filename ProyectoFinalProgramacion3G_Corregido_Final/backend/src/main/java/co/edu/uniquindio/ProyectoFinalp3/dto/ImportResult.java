@@ -0,0 +1,52 @@
+/**
+ * DTO de resultado de importación masiva.
+ * Resume cuántas filas se insertaron y cuáles fallaron.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de importar productos desde un archivo CSV o NDJSON.
+ * Los errores se informan por número de línea; si hay demasiados,
+ * solo se devuelven los primeros y truncated queda en true.
+ */
+public class ImportResult {
+
+    private final int imported;
+    private final int failed;
+    private final List<RowError> errors;
+    private final boolean truncated;
+
+    public ImportResult(int imported, int failed, List<RowError> errors, boolean truncated) {
+        this.imported = imported;
+        this.failed = failed;
+        this.errors = errors;
+        this.truncated = truncated;
+    }
+
+    public int getImported() { return imported; }
+
+    public int getFailed() { return failed; }
+
+    public List<RowError> getErrors() { return errors; }
+
+    public boolean isTruncated() { return truncated; }
+
+    /**
+     * Fila rechazada y motivo.
+     */
+    public static class RowError {
+        private final long line;
+        private final String message;
+
+        public RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() { return line; }
+
+        public String getMessage() { return message; }
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * DTO de consulta múltiple de productos.
+ * Devuelve los productos encontrados y los IDs que no existen.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.dto;
+
+import co.edu.uniquindio.ProyectoFinalp3.models.Product;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Respuesta de la consulta de varios productos por ID.
+ * Los productos vienen en el mismo orden en que se pidieron.
+ */
+public class ProductBatch {
+
+    private final List<Product> items;
+    private final List<UUID> missing;
+
+    public ProductBatch(List<Product> items, List<UUID> missing) {
+        this.items = items;
+        this.missing = missing;
+    }
+
+    public List<Product> getItems() { return items; }
+
+    public List<UUID> getMissing() { return missing; }
+}
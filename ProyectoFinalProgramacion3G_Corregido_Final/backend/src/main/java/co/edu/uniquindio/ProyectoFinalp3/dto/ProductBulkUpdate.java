@@ -0,0 +1,39 @@
+/**
+ * DTO de actualización masiva de productos.
+ * Aplica los mismos cambios de precio, estado o stock a varios productos.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.dto;
+
+import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Cambios a aplicar sobre una lista de productos.
+ * Los campos nulos no se modifican; debe venir al menos uno.
+ */
+public class ProductBulkUpdate {
+
+    private List<UUID> ids;
+    private BigDecimal price;
+    private ProductStatus status;
+    private Integer availableQuantity;
+
+    public List<UUID> getIds() { return ids; }
+
+    public void setIds(List<UUID> ids) { this.ids = ids; }
+
+    public BigDecimal getPrice() { return price; }
+
+    public void setPrice(BigDecimal price) { this.price = price; }
+
+    public ProductStatus getStatus() { return status; }
+
+    public void setStatus(ProductStatus status) { this.status = status; }
+
+    public Integer getAvailableQuantity() { return availableQuantity; }
+
+    public void setAvailableQuantity(Integer availableQuantity) { this.availableQuantity = availableQuantity; }
+}
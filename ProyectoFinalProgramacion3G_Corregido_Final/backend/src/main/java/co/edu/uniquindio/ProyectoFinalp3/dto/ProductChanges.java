@@ -0,0 +1,38 @@
+/**
+ * DTO de sincronización incremental del catálogo.
+ * Devuelve los productos que cambiaron desde una versión.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Cambios del catálogo activo posteriores a una versión.
+ *
+ * El cliente aplica las altas o cambios, quita los IDs eliminados y guarda la
+ * versión para la siguiente consulta. Si reset es true debe volver a descargar
+ * el catálogo completo (por ejemplo, porque su versión ya no está en el registro).
+ */
+public class ProductChanges {
+
+    private final long version;
+    private final List<ProductSummary> upserts;
+    private final List<UUID> removed;
+    private final boolean reset;
+
+    public ProductChanges(long version, List<ProductSummary> upserts, List<UUID> removed, boolean reset) {
+        this.version = version;
+        this.upserts = upserts;
+        this.removed = removed;
+        this.reset = reset;
+    }
+
+    public long getVersion() { return version; }
+
+    public List<ProductSummary> getUpserts() { return upserts; }
+
+    public List<UUID> getRemoved() { return removed; }
+
+    public boolean isReset() { return reset; }
+}
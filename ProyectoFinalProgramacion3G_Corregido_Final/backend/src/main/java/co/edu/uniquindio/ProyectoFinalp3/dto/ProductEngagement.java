@@ -0,0 +1,39 @@
+/**
+ * DTO de interacción con un producto.
+ * Reúne calificaciones y likes para pintar una tarjeta del catálogo.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.dto;
+
+import java.util.UUID;
+
+/**
+ * Promedio y número de calificaciones y número de likes de un producto.
+ */
+public class ProductEngagement {
+
+    private final UUID productId;
+    private final double average;
+    private final long count;
+    private final long likes;
+
+    public ProductEngagement(UUID productId, double average, long count, long likes) {
+        this.productId = productId;
+        this.average = average;
+        this.count = count;
+        this.likes = likes;
+    }
+
+    public UUID getProductId() { return productId; }
+
+    /**
+     * Promedio de estrellas (0 si no tiene calificaciones).
+     */
+    public double getAverage() { return average; }
+
+    /**
+     * Número de calificaciones.
+     */
+    public long getCount() { return count; }
+
+    public long getLikes() { return likes; }
+}
@@ -0,0 +1,63 @@
+/**
+ * DTO de actualización parcial de producto.
+ * Solo se modifican los campos que el cliente envía.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.dto;
+
+import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+
+import java.math.BigDecimal;
+
+/**
+ * Campos de un PATCH de producto. Un campo nulo o ausente no se modifica.
+ * Si se envía version, el cambio solo se aplica si el producto sigue en esa versión.
+ */
+public class ProductPatch {
+
+    private String name;
+    private String description;
+    private String imageUrl;
+    private BigDecimal price;
+    private Integer availableQuantity;
+    private ProductStatus status;
+    private String category;
+    private Long version;
+
+    public String getName() { return name; }
+
+    public void setName(String name) { this.name = name; }
+
+    public String getDescription() { return description; }
+
+    public void setDescription(String description) { this.description = description; }
+
+    public String getImageUrl() { return imageUrl; }
+
+    public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+
+    public BigDecimal getPrice() { return price; }
+
+    public void setPrice(BigDecimal price) { this.price = price; }
+
+    public Integer getAvailableQuantity() { return availableQuantity; }
+
+    public void setAvailableQuantity(Integer availableQuantity) { this.availableQuantity = availableQuantity; }
+
+    public ProductStatus getStatus() { return status; }
+
+    public void setStatus(ProductStatus status) { this.status = status; }
+
+    /**
+     * Nombre de la categoría; si no existe se crea.
+     */
+    public String getCategory() { return category; }
+
+    public void setCategory(String category) { this.category = category; }
+
+    /**
+     * Versión leída por el cliente (null para no comprobarla).
+     */
+    public Long getVersion() { return version; }
+
+    public void setVersion(Long version) { this.version = version; }
+}
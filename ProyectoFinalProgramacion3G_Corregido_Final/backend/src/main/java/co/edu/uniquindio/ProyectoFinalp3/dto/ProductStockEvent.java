@@ -0,0 +1,61 @@
+/**
+ * DTO de evento de producto en tiempo real.
+ * Lleva stock, estado y precio para los suscriptores SSE.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.dto;
+
+import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Estado visible de un producto enviado por el stream de cambios.
+ * Si removed es true el producto fue eliminado y los demás campos van vacíos.
+ */
+public class ProductStockEvent {
+
+    private final UUID productId;
+    private final String category;
+    private final Integer availableQuantity;
+    private final ProductStatus status;
+    private final BigDecimal price;
+    private final boolean removed;
+
+    public ProductStockEvent(UUID productId, String category, Integer availableQuantity,
+                             ProductStatus status, BigDecimal price, boolean removed) {
+        this.productId = productId;
+        this.category = category;
+        this.availableQuantity = availableQuantity;
+        this.status = status;
+        this.price = price;
+        this.removed = removed;
+    }
+
+    /**
+     * Crea el evento a partir del resumen del producto guardado.
+     */
+    public static ProductStockEvent of(ProductSummary summary) {
+        return new ProductStockEvent(summary.getId(), summary.getCategory(), summary.getAvailableQuantity(),
+                summary.getStatus(), summary.getPrice(), false);
+    }
+
+    /**
+     * Crea el evento de un producto eliminado.
+     */
+    public static ProductStockEvent removed(UUID productId) {
+        return new ProductStockEvent(productId, null, null, null, null, true);
+    }
+
+    public UUID getProductId() { return productId; }
+
+    public String getCategory() { return category; }
+
+    public Integer getAvailableQuantity() { return availableQuantity; }
+
+    public ProductStatus getStatus() { return status; }
+
+    public BigDecimal getPrice() { return price; }
+
+    public boolean isRemoved() { return removed; }
+}
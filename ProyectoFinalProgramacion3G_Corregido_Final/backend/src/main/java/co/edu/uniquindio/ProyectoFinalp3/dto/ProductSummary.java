@@ -0,0 +1,80 @@
+/**
+ * DTO de resumen de producto.
+ * Incluye solo los campos que muestran los listados del catálogo.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.dto;
+
+import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+import co.edu.uniquindio.ProyectoFinalp3.models.Product;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Proyección de lectura de un producto para listados y búsquedas.
+ *
+ * Se construye directamente en la consulta JPQL, así que no se cargan
+ * las relaciones de usuario, categoría ni marketplace. La categoría se
+ * entrega solo por su nombre.
+ */
+public class ProductSummary {
+
+    private final UUID id;
+    private final String name;
+    private final BigDecimal price;
+    private final String imageUrl;
+    private final ProductStatus status;
+    private final String category;
+    private final Integer availableQuantity;
+    private final long version;
+
+    public ProductSummary(UUID id, String name, BigDecimal price, String imageUrl,
+                          ProductStatus status, String category, Integer availableQuantity, Long version) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.imageUrl = imageUrl;
+        this.status = status;
+        this.category = category;
+        this.availableQuantity = availableQuantity;
+        this.version = version != null ? version : 0;
+    }
+
+    /**
+     * Crea el resumen a partir de una entidad Product ya cargada.
+     */
+    public static ProductSummary from(Product product) {
+        return new ProductSummary(
+                product.getId(),
+                product.getName(),
+                product.getPrice(),
+                product.getImageUrl(),
+                product.getStatus(),
+                product.getCategory() != null ? product.getCategory().getName() : null,
+                product.getAvailableQuantity(),
+                product.getVersion()
+        );
+    }
+
+    public UUID getId() { return id; }
+
+    public String getName() { return name; }
+
+    public BigDecimal getPrice() { return price; }
+
+    public String getImageUrl() { return imageUrl; }
+
+    public ProductStatus getStatus() { return status; }
+
+    /**
+     * Nombre de la categoría del producto (null si no tiene).
+     */
+    public String getCategory() { return category; }
+
+    public Integer getAvailableQuantity() { return availableQuantity; }
+
+    /**
+     * Versión de la fila del producto con la que se armó el resumen.
+     */
+    public long getVersion() { return version; }
+}
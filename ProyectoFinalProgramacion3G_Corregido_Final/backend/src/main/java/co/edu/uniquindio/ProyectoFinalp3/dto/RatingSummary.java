@@ -0,0 +1,46 @@
+/**
+ * DTO de resumen de calificaciones.
+ * Devuelve promedio, número de calificaciones e histograma de estrellas.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.dto;
+
+import java.util.UUID;
+
+/**
+ * Resumen de calificaciones de un producto leído de los agregados guardados en
+ * la fila del producto. El histograma tiene 5 posiciones (1 a 5 estrellas).
+ */
+public class RatingSummary {
+
+    private final UUID productId;
+    private final double average;
+    private final long count;
+    private final long[] histogram;
+
+    public RatingSummary(UUID productId, Long sum, Long count,
+                         Long oneStar, Long twoStars, Long threeStars, Long fourStars, Long fiveStars) {
+        this.productId = productId;
+        this.count = count == null ? 0 : count;
+        this.average = this.count == 0 || sum == null ? 0.0 : (double) sum / this.count;
+        this.histogram = new long[] { orZero(oneStar), orZero(twoStars), orZero(threeStars), orZero(fourStars), orZero(fiveStars) };
+    }
+
+    /**
+     * Resumen vacío para un producto sin calificaciones (o inexistente).
+     */
+    public static RatingSummary empty(UUID productId) {
+        return new RatingSummary(productId, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
+    }
+
+    public UUID getProductId() { return productId; }
+
+    public double getAverage() { return average; }
+
+    public long getCount() { return count; }
+
+    public long[] getHistogram() { return histogram; }
+
+    private static long orZero(Long value) {
+        return value == null ? 0 : value;
+    }
+}
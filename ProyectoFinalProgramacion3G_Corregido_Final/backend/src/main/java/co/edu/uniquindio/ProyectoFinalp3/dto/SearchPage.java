@@ -0,0 +1,35 @@
+/**
+ * DTO de página de búsqueda.
+ * Devuelve resultados ordenados por relevancia y el total de coincidencias.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.dto;
+
+import java.util.List;
+
+/**
+ * Página de resultados de búsqueda con paginación por desplazamiento.
+ *
+ * @param <T> Tipo de los elementos de la página
+ */
+public class SearchPage<T> {
+
+    private final List<T> items;
+    private final int total;
+    private final int offset;
+    private final int limit;
+
+    public SearchPage(List<T> items, int total, int offset, int limit) {
+        this.items = items;
+        this.total = total;
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    public List<T> getItems() { return items; }
+
+    public int getTotal() { return total; }
+
+    public int getOffset() { return offset; }
+
+    public int getLimit() { return limit; }
+}
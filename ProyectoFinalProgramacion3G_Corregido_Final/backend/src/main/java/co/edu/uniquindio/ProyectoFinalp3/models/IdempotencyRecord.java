@@ -0,0 +1,88 @@
+/**
+ * Modelo de clave de idempotencia.
+ * Guarda la respuesta de una petición para repetirla en los reintentos.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.models;
+
+import java.util.Date;
+
+import jakarta.persistence.*;
+
+/**
+ * Respuesta guardada de una petición con cabecera Idempotency-Key.
+ * Mientras la petición original se ejecuta, status vale 0 y su dueño renueva
+ * lease_until; la clave solo se puede tomar cuando ese plazo venció.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_created", columnList = "created_at")
+})
+public class IdempotencyRecord {
+
+    /**
+     * SHA-256 en hexadecimal de la ruta más la clave enviada por el cliente.
+     */
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    /**
+     * SHA-256 de método, ruta, parámetros y cuerpo de la petición original.
+     */
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(nullable = false)
+    private int status;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdAt;
+
+    /**
+     * Token de la ejecución que reclamó la clave.
+     */
+    @Column(length = 36)
+    private String owner;
+
+    /**
+     * Hasta cuándo la ejecución en curso conserva la clave si deja de renovarla.
+     */
+    @Column(name = "lease_until")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date leaseUntil;
+
+    // Constructor vacío
+    public IdempotencyRecord() {}
+
+    // Getters y Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getFingerprint() { return fingerprint; }
+    public void setFingerprint(String fingerprint) { this.fingerprint = fingerprint; }
+
+    public int getStatus() { return status; }
+    public void setStatus(int status) { this.status = status; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public String getResponseBody() { return responseBody; }
+    public void setResponseBody(String responseBody) { this.responseBody = responseBody; }
+
+    public Date getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Date createdAt) { this.createdAt = createdAt; }
+
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+
+    public Date getLeaseUntil() { return leaseUntil; }
+    public void setLeaseUntil(Date leaseUntil) { this.leaseUntil = leaseUntil; }
+}
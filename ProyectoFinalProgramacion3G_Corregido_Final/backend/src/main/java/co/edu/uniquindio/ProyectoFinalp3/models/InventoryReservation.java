@@ -0,0 +1,64 @@
+/**
+ * Modelo de reserva de inventario.
+ * Retiene unidades de un producto para una orden pendiente de pago.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.models;
+
+import java.util.Date;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * Unidades ya descontadas de available_quantity que vuelven al stock si la
+ * orden no se paga antes de expiresAt. Al pagar, la fila se borra y la venta
+ * queda firme. Orden y producto se guardan como IDs sueltos: la reserva se
+ * borra antes que la orden y no debe impedir eliminarla.
+ */
+@Entity
+@Table(name = "inventory_reservations", indexes = {
+        @Index(name = "idx_reservations_order", columnList = "order_id")
+})
+public class InventoryReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID id;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "order_id", nullable = false)
+    private UUID orderId;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "product_id", nullable = false)
+    private UUID productId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(name = "expires_at", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date expiresAt;
+
+    // Constructor vacío
+    public InventoryReservation() {}
+
+    // Getters y Setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public UUID getOrderId() { return orderId; }
+    public void setOrderId(UUID orderId) { this.orderId = orderId; }
+
+    public UUID getProductId() { return productId; }
+    public void setProductId(UUID productId) { this.productId = productId; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    public Date getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Date expiresAt) { this.expiresAt = expiresAt; }
+}
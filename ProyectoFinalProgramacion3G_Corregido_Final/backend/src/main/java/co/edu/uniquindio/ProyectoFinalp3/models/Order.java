@@ -9,6 +9,7 @@ import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 
@@ -87,6 +88,13 @@ public class Order {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL)
     private List<OrderItem> orderItems = new ArrayList<>();
 
+    /**
+     * Momento en que vence la reserva de stock de la orden pendiente.
+     * Solo se informa al crearla; no se guarda en la tabla orders.
+     */
+    @Transient
+    private Date reservedUntil;
+
     /**
      * Constructor vacío requerido por JPA.
      */
@@ -180,4 +188,16 @@ public class Order {
      * @param orderItems Lista de items de la orden
      */
     public void setOrderItems(List<OrderItem> orderItems) { this.orderItems = orderItems; }
+
+    /**
+     * Obtiene el vencimiento de la reserva de stock.
+     * @return Fecha límite de pago, o null si no se conoce
+     */
+    public Date getReservedUntil() { return reservedUntil; }
+
+    /**
+     * Establece el vencimiento de la reserva de stock.
+     * @param reservedUntil Fecha límite de pago
+     */
+    public void setReservedUntil(Date reservedUntil) { this.reservedUntil = reservedUntil; }
 }
@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.UUID;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
 
@@ -67,6 +68,53 @@ public class Product {
     @Column(name = "available_quantity")
     private Integer availableQuantity;
 
+    /**
+     * Número de vistas del producto ya guardadas en la base de datos.
+     * Lo escribe solo el contador de vistas con UPDATE por lotes, por eso
+     * JPA no lo incluye en INSERT ni UPDATE (null equivale a 0).
+     */
+    @Column(name = "view_count", insertable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long viewCount;
+
+    /**
+     * Suma de estrellas, número de calificaciones e histograma de 1 a 5 estrellas.
+     * Se mantienen con UPDATE de incremento en la misma transacción que guarda
+     * la calificación, así que el resumen se lee sin agregar product_ratings.
+     * JPA no los incluye en INSERT ni UPDATE para no pisar esos incrementos.
+     */
+    @Column(name = "rating_sum", insertable = false, updatable = false, nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    @JsonIgnore
+    private Long ratingSum;
+
+    @Column(name = "rating_count", insertable = false, updatable = false, nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long ratingCount;
+
+    @Column(name = "rating_1", insertable = false, updatable = false, nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long rating1;
+
+    @Column(name = "rating_2", insertable = false, updatable = false, nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long rating2;
+
+    @Column(name = "rating_3", insertable = false, updatable = false, nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long rating3;
+
+    @Column(name = "rating_4", insertable = false, updatable = false, nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long rating4;
+
+    @Column(name = "rating_5", insertable = false, updatable = false, nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long rating5;
+
+    /**
+     * Versión para el control optimista de concurrencia.
+     * Cada UPDATE la incrementa; una edición hecha sobre una versión vieja se rechaza.
+     * Las filas existentes y las insertadas por JDBC empiezan en 0.
+     */
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
     /**
      * Categoría a la que pertenece el producto.
      * Relación muchos-a-uno con la entidad Category.
@@ -242,6 +290,58 @@ public class Product {
      */
     public void setAvailableQuantity(Integer availableQuantity) { this.availableQuantity = availableQuantity; }
 
+    /**
+     * Obtiene el número de vistas guardadas del producto.
+     * Puede ir unos segundos por detrás de las vistas reales (ver /stats).
+     * @return Vistas acumuladas (0 si no tiene)
+     */
+    public long getViewCount() { return viewCount == null ? 0 : viewCount; }
+
+    /**
+     * Establece el número de vistas guardadas.
+     * @param viewCount Vistas acumuladas
+     */
+    public void setViewCount(Long viewCount) { this.viewCount = viewCount; }
+
+    /**
+     * Obtiene el número de calificaciones del producto.
+     * @return Calificaciones recibidas (0 si no tiene)
+     */
+    public long getRatingCount() { return ratingCount == null ? 0 : ratingCount; }
+
+    /**
+     * Obtiene el promedio de estrellas a partir de los agregados guardados.
+     * @return Promedio de 1 a 5, o 0 si no tiene calificaciones
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public double getRatingAverage() {
+        long count = getRatingCount();
+        return count == 0 || ratingSum == null ? 0.0 : (double) ratingSum / count;
+    }
+
+    /**
+     * Obtiene cuántas calificaciones hay de cada número de estrellas.
+     * @return Arreglo de 5 posiciones: índice 0 para 1 estrella, índice 4 para 5
+     */
+    @JsonIgnore
+    public long[] getRatingHistogram() {
+        return new long[] { orZero(rating1), orZero(rating2), orZero(rating3), orZero(rating4), orZero(rating5) };
+    }
+
+    private static long orZero(Long value) { return value == null ? 0 : value; }
+
+    /**
+     * Obtiene la versión de la fila usada para detectar ediciones concurrentes.
+     * @return Versión actual (null si el producto aún no se ha guardado)
+     */
+    public Long getVersion() { return version; }
+
+    /**
+     * Establece la versión sobre la que se hizo la edición.
+     * @param version Versión leída por el cliente
+     */
+    public void setVersion(Long version) { this.version = version; }
+
     /**
      * Obtiene el estado actual del producto.
      * @return ProductStatus que indica el estado del producto
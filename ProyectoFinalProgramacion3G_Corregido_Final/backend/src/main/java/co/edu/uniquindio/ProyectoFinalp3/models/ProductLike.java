@@ -11,7 +11,9 @@ import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
 @Entity
-@Table(name = "product_likes")
+@Table(name = "product_likes", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_product_likes_product_user", columnNames = {"product_id", "user_id"})
+})
 public class ProductLike {
 
     @Id
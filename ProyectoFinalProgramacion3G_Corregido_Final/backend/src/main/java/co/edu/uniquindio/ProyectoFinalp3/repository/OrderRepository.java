@@ -8,6 +8,9 @@ import co.edu.uniquindio.ProyectoFinalp3.enums.OrderStatus;
 import co.edu.uniquindio.ProyectoFinalp3.models.Order;
 import co.edu.uniquindio.ProyectoFinalp3.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -21,4 +24,9 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
 
     // Método adicional si necesitas buscar órdenes por estado
     List<Order> findByUserAndStatus(User user, OrderStatus status);
+
+    // Cambia el estado solo si la orden sigue en el estado esperado; devuelve las filas modificadas
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :target WHERE o.id = :id AND o.status = :expected")
+    int updateStatusIf(@Param("id") UUID id, @Param("expected") OrderStatus expected, @Param("target") OrderStatus target);
 }
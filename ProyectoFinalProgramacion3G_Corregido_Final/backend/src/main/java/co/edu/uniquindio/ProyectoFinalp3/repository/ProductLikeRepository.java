@@ -6,8 +6,12 @@ package co.edu.uniquindio.ProyectoFinalp3.repository;
 
 import co.edu.uniquindio.ProyectoFinalp3.models.ProductLike;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -19,4 +23,15 @@ public interface ProductLikeRepository extends JpaRepository<ProductLike, UUID>
 
     // Buscar si un usuario ya dio "like" a un producto específico
     Optional<ProductLike> findByProductIdAndUserId(UUID productId, UUID userId);
+
+    // Saber si el usuario ya dio "like" sin cargar el producto ni el usuario
+    boolean existsByProductIdAndUserId(UUID productId, UUID userId);
+
+    // Conteo de "likes" agrupado por producto: filas [productId, cantidad]
+    @Query("SELECT l.product.id, COUNT(l) FROM ProductLike l GROUP BY l.product.id")
+    List<Object[]> countGroupedByProduct();
+
+    // Conteo de "likes" de varios productos: filas [productId, cantidad]
+    @Query("SELECT l.product.id, COUNT(l) FROM ProductLike l WHERE l.product.id IN :productIds GROUP BY l.product.id")
+    List<Object[]> countGroupedByProductIdIn(@Param("productIds") Collection<UUID> productIds);
 }
@@ -4,14 +4,24 @@
  */
 package co.edu.uniquindio.ProyectoFinalp3.repository;
 
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductSummary;
+import co.edu.uniquindio.ProyectoFinalp3.dto.RatingSummary;
 import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
 import co.edu.uniquindio.ProyectoFinalp3.models.Product;
+import co.edu.uniquindio.ProyectoFinalp3.search.ProductDocument;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.List;
 
@@ -39,4 +49,66 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
 
     @Query("SELECT p FROM Product p WHERE p.status IN :statuses AND (LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR LOWER(p.description) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
     List<Product> findByStatusesInAndNameOrDescriptionContainingIgnoreCase(@Param("statuses") List<ProductStatus> statuses, @Param("searchTerm") String searchTerm);
+
+    // Paginación por cursor (keyset) sobre resúmenes: ordena por ID y continúa después del último entregado.
+    // Se seleccionan solo las columnas del listado, sin cargar usuario, categoría ni marketplace.
+    @Query("SELECT new co.edu.uniquindio.ProyectoFinalp3.dto.ProductSummary(p.id, p.name, p.price, p.imageUrl, p.status, c.name, p.availableQuantity, p.version) " +
+           "FROM Product p LEFT JOIN p.category c WHERE p.id > :after ORDER BY p.id")
+    List<ProductSummary> findPageAfter(@Param("after") UUID after, Pageable pageable);
+
+    @Query("SELECT new co.edu.uniquindio.ProyectoFinalp3.dto.ProductSummary(p.id, p.name, p.price, p.imageUrl, p.status, c.name, p.availableQuantity, p.version) " +
+           "FROM Product p LEFT JOIN p.category c WHERE p.status IN :statuses AND p.id > :after ORDER BY p.id")
+    List<ProductSummary> findPageByStatusInAfter(@Param("statuses") List<ProductStatus> statuses, @Param("after") UUID after, Pageable pageable);
+
+    @Query("SELECT new co.edu.uniquindio.ProyectoFinalp3.dto.ProductSummary(p.id, p.name, p.price, p.imageUrl, p.status, c.name, p.availableQuantity, p.version) " +
+           "FROM Product p LEFT JOIN p.category c WHERE p.user.username = :username AND p.id > :after ORDER BY p.id")
+    List<ProductSummary> findPageByUsernameAfter(@Param("username") String username, @Param("after") UUID after, Pageable pageable);
+
+    @Query("SELECT new co.edu.uniquindio.ProyectoFinalp3.dto.ProductSummary(p.id, p.name, p.price, p.imageUrl, p.status, c.name, p.availableQuantity, p.version) " +
+           "FROM Product p JOIN p.category c WHERE c.name = :categoryName AND p.id > :after ORDER BY p.id")
+    List<ProductSummary> findPageByCategoryNameAfter(@Param("categoryName") String categoryName, @Param("after") UUID after, Pageable pageable);
+
+    @Query("SELECT new co.edu.uniquindio.ProyectoFinalp3.dto.ProductSummary(p.id, p.name, p.price, p.imageUrl, p.status, c.name, p.availableQuantity, p.version) " +
+           "FROM Product p LEFT JOIN p.category c WHERE p.status IN :statuses")
+    List<ProductSummary> findSummariesByStatusIn(@Param("statuses") List<ProductStatus> statuses);
+
+    @Query("SELECT new co.edu.uniquindio.ProyectoFinalp3.dto.ProductSummary(p.id, p.name, p.price, p.imageUrl, p.status, c.name, p.availableQuantity, p.version) " +
+           "FROM Product p LEFT JOIN p.category c WHERE p.id IN :ids")
+    List<ProductSummary> findSummariesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Carga varios productos en una sola consulta, trayendo en la misma sus relaciones ManyToOne
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.user LEFT JOIN FETCH p.marketPlace WHERE p.id IN :ids")
+    List<Product> findAllWithRelationsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Carga el producto bloqueando su fila hasta el fin de la transacción (SELECT ... FOR UPDATE)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") UUID id);
+
+    // Vistas guardadas de un producto; vacío si el producto no existe
+    @Query("SELECT COALESCE(p.viewCount, 0) FROM Product p WHERE p.id = :id")
+    Optional<Long> findViewCount(@Param("id") UUID id);
+
+    // Actualización masiva por conjunto: los parámetros nulos conservan el valor actual.
+    // Si se indica vendedor, solo se modifican sus productos.
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Product p SET p.price = COALESCE(:price, p.price), p.status = COALESCE(:status, p.status), " +
+           "p.availableQuantity = COALESCE(:quantity, p.availableQuantity), p.version = p.version + 1 " +
+           "WHERE p.id IN :ids AND (:username IS NULL OR p.user.id IN (SELECT u.id FROM User u WHERE u.username = :username))")
+    int bulkUpdate(@Param("ids") Collection<UUID> ids, @Param("price") BigDecimal price, @Param("status") ProductStatus status,
+                   @Param("quantity") Integer quantity, @Param("username") String username);
+
+    // Resumen de calificaciones desde los agregados del producto, sin recorrer product_ratings
+    @Query("SELECT new co.edu.uniquindio.ProyectoFinalp3.dto.RatingSummary(p.id, p.ratingSum, p.ratingCount, " +
+           "p.rating1, p.rating2, p.rating3, p.rating4, p.rating5) FROM Product p WHERE p.id = :id")
+    Optional<RatingSummary> findRatingSummary(@Param("id") UUID id);
+
+    @Query("SELECT new co.edu.uniquindio.ProyectoFinalp3.dto.RatingSummary(p.id, p.ratingSum, p.ratingCount, " +
+           "p.rating1, p.rating2, p.rating3, p.rating4, p.rating5) FROM Product p WHERE p.id IN :ids")
+    List<RatingSummary> findRatingSummariesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Documentos ligeros para construir los índices de búsqueda en memoria
+    @Query("SELECT new co.edu.uniquindio.ProyectoFinalp3.search.ProductDocument(p.id, p.name, p.description, c.name, p.status, p.price) " +
+           "FROM Product p LEFT JOIN p.category c WHERE p.id > :after ORDER BY p.id")
+    List<ProductDocument> findDocumentsAfter(@Param("after") UUID after, Pageable pageable);
 }
@@ -6,6 +6,7 @@ package co.edu.uniquindio.ProyectoFinalp3.repository;
 
 import co.edu.uniquindio.ProyectoFinalp3.models.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -69,4 +70,13 @@ public interface UserRepository extends JpaRepository<User, UUID> {
      * @return Optional<User> que contiene el usuario si existe, vacío si no existe
      */
     public Optional<User> getUserById(UUID id);
+
+    /**
+     * Busca varios usuarios por nombre de usuario en una sola consulta.
+     * Los nombres que no existen simplemente no aparecen en el resultado.
+     * 
+     * @param usernames Nombres de usuario a buscar
+     * @return Lista de usuarios encontrados
+     */
+    List<User> findByUsernameIn(Collection<String> usernames);
 }
@@ -0,0 +1,30 @@
+/**
+ * Conversión de UUID a binario.
+ * Usada por las consultas JDBC directas sobre columnas BINARY(16).
+ */
+package co.edu.uniquindio.ProyectoFinalp3.repository;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Los IDs se guardan como 16 bytes (@JdbcTypeCode(SqlTypes.BINARY)): primero los
+ * 8 bytes más significativos y luego los 8 menos significativos, en big-endian.
+ * Las sentencias JDBC escritas a mano deben enviar el ID en ese mismo formato.
+ */
+public final class UuidBinary {
+
+    private UuidBinary() {}
+
+    public static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    public static UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Filtros de la búsqueda facetada.
+ * Restringen por categoría, estado y rango de precio.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.search;
+
+import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Filtros seleccionados en la barra lateral del catálogo.
+ *
+ * Un filtro vacío acepta todo, salvo el de estado: sin estados elegidos
+ * solo se aceptan los productos visibles (ACTIVE y AVAILABLE).
+ * El rango de precio es [minPrice, maxPrice) y cualquiera de los extremos puede faltar.
+ */
+public class FacetFilter {
+
+    private final Set<String> categories = new HashSet<>();
+    private final Set<ProductStatus> statuses;
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+
+    public FacetFilter(Collection<String> categories, Collection<ProductStatus> statuses,
+                       BigDecimal minPrice, BigDecimal maxPrice) {
+        if (categories != null) {
+            for (String category : categories) {
+                if (category != null && !category.isBlank()) {
+                    this.categories.add(TextAnalyzer.fold(category.trim()));
+                }
+            }
+        }
+        this.statuses = statuses == null || statuses.isEmpty()
+                ? EnumSet.of(ProductStatus.ACTIVE, ProductStatus.AVAILABLE)
+                : EnumSet.copyOf(statuses);
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("El precio mínimo no puede ser mayor que el máximo");
+        }
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    /**
+     * Indica si la categoría (por nombre, sin distinguir acentos ni mayúsculas) pasa el filtro.
+     */
+    public boolean acceptsCategory(String categoryName) {
+        return categories.isEmpty() || (categoryName != null && categories.contains(TextAnalyzer.fold(categoryName.trim())));
+    }
+
+    public boolean acceptsStatus(ProductStatus status) {
+        return statuses.contains(status);
+    }
+
+    public boolean acceptsPrice(BigDecimal price) {
+        if (minPrice == null && maxPrice == null) {
+            return true;
+        }
+        if (price == null) {
+            return false;
+        }
+        return (minPrice == null || price.compareTo(minPrice) >= 0)
+                && (maxPrice == null || price.compareTo(maxPrice) < 0);
+    }
+}
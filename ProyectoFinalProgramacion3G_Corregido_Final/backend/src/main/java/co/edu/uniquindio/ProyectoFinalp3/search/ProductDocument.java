@@ -0,0 +1,68 @@
+/**
+ * Documento indexable de producto.
+ * Reúne solo los campos que usan los índices de búsqueda.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.search;
+
+import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+import co.edu.uniquindio.ProyectoFinalp3.models.Product;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Vista ligera e inmutable de un producto para indexación.
+ * Se construye desde una consulta de proyección o desde la entidad recién guardada.
+ */
+public class ProductDocument {
+
+    private final UUID id;
+    private final String name;
+    private final String description;
+    private final String categoryName;
+    private final ProductStatus status;
+    private final BigDecimal price;
+
+    public ProductDocument(UUID id, String name, String description, String categoryName,
+                           ProductStatus status, BigDecimal price) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.categoryName = categoryName;
+        this.status = status;
+        this.price = price;
+    }
+
+    /**
+     * Crea el documento a partir de una entidad Product.
+     */
+    public static ProductDocument from(Product product) {
+        return new ProductDocument(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getCategory() != null ? product.getCategory().getName() : null,
+                product.getStatus(),
+                product.getPrice()
+        );
+    }
+
+    /**
+     * Indica si el producto se muestra en el catálogo público.
+     */
+    public boolean isActive() {
+        return status == ProductStatus.ACTIVE || status == ProductStatus.AVAILABLE;
+    }
+
+    public UUID getId() { return id; }
+
+    public String getName() { return name; }
+
+    public String getDescription() { return description; }
+
+    public String getCategoryName() { return categoryName; }
+
+    public ProductStatus getStatus() { return status; }
+
+    public BigDecimal getPrice() { return price; }
+}
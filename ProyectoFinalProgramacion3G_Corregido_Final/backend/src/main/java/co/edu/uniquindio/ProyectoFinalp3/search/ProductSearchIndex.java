@@ -0,0 +1,632 @@
+/**
+ * Índice invertido de productos en memoria.
+ * Permite búsquedas por texto con ranking BM25 sin consultar la base de datos.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.search;
+
+import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido sobre nombre, categoría y descripción de los productos.
+ *
+ * Cada término apunta a una lista de documentos con su frecuencia ponderada
+ * (el nombre pesa más que la categoría y esta más que la descripción).
+ * Las búsquedas recorren solo las listas de los términos consultados, así que
+ * el costo depende de cuántos productos coinciden y no del tamaño del catálogo.
+ * El último término de la consulta se trata además como prefijo ("iph" encuentra "iphone").
+ *
+ * Además mantiene un índice de trigramas sobre el nombre para la búsqueda
+ * tolerante a errores de escritura ("iphne" encuentra "iPhone").
+ *
+ * Para las facetas cada documento guarda el número de su categoría en un
+ * diccionario, de modo que los conteos se acumulan en arreglos de enteros.
+ *
+ * Las eliminaciones marcan el documento como borrado y el índice se compacta
+ * cuando los borrados superan a los vivos.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    /** Parámetros estándar de BM25 */
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /** Máximo de términos expandidos por prefijo y penalización de su puntaje */
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+    private static final double PREFIX_WEIGHT = 0.7;
+
+    /** Mínimo de documentos borrados antes de considerar una compactación */
+    private static final int COMPACTION_THRESHOLD = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Documentos por identificador interno; null si fue eliminado */
+    private final ArrayList<Slot> slots = new ArrayList<>();
+    private final Map<UUID, Integer> docIds = new HashMap<>();
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final Map<Long, Postings> trigramPostings = new HashMap<>();
+
+    /** Diccionario de categorías: nombre a número y número a nombre */
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+    private final List<String> categoryNames = new ArrayList<>();
+
+    private long totalLength;
+    private int liveCount;
+    private int activeCount;
+    private int deletedCount;
+
+    /**
+     * Reemplaza todo el contenido del índice.
+     *
+     * @param documents Documentos de todos los productos
+     */
+    public void rebuild(Collection<ProductDocument> documents) {
+        lock.writeLock().lock();
+        try {
+            slots.clear();
+            docIds.clear();
+            postings.clear();
+            trigramPostings.clear();
+            categoryIds.clear();
+            categoryNames.clear();
+            totalLength = 0;
+            liveCount = 0;
+            activeCount = 0;
+            deletedCount = 0;
+            for (ProductDocument document : documents) {
+                add(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Agrega o reemplaza un producto en el índice.
+     *
+     * @param document Documento del producto creado o actualizado
+     */
+    public void index(ProductDocument document) {
+        lock.writeLock().lock();
+        try {
+            delete(document.getId());
+            add(document);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un producto del índice.
+     *
+     * @param productId ID del producto eliminado
+     */
+    public void remove(UUID productId) {
+        lock.writeLock().lock();
+        try {
+            delete(productId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indica si el producto está indexado, con cualquier estado.
+     */
+    public boolean contains(UUID productId) {
+        lock.readLock().lock();
+        try {
+            return docIds.containsKey(productId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca productos activos que coinciden con la consulta, ordenados por relevancia.
+     * Con una consulta vacía devuelve los productos activos en orden de indexación.
+     *
+     * @param query Texto de búsqueda
+     * @param offset Número de resultados a saltar
+     * @param limit Número máximo de resultados a devolver
+     * @return IDs de la página pedida y total de coincidencias
+     */
+    public Hits search(String query, int offset, int limit) {
+        List<String> terms = TextAnalyzer.tokenize(query);
+        lock.readLock().lock();
+        try {
+            if (terms.isEmpty()) {
+                return matchAll(offset, limit);
+            }
+            Map<Integer, Double> scores = score(terms, true);
+            return topK(scores, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca productos activos cuyo nombre se parece a la consulta por trigramas.
+     * Tolera letras faltantes, sobrantes o cambiadas.
+     *
+     * La similitud es la fracción de trigramas de la consulta presentes en el
+     * nombre; a igual similitud se prefiere el nombre más parecido en longitud
+     * (Jaccard). Un producto solo supera el umbral si comparte al menos
+     * ceil(umbral * |Q|) trigramas, así que los candidatos salen únicamente de
+     * las listas menos frecuentes y luego se verifican uno a uno.
+     *
+     * @param query Texto de búsqueda
+     * @param threshold Similitud mínima (0 a 1)
+     * @param offset Número de resultados a saltar
+     * @param limit Número máximo de resultados a devolver
+     * @return IDs de la página pedida y total de coincidencias
+     */
+    public Hits fuzzySearch(String query, double threshold, int offset, int limit) {
+        long[] grams = Trigrams.of(query);
+        if (grams.length == 0) {
+            return new Hits(new ArrayList<>(), 0);
+        }
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>();
+            for (long gram : grams) {
+                Postings list = trigramPostings.get(gram);
+                if (list != null) {
+                    lists.add(list);
+                }
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            int minShared = Math.max(1, (int) Math.ceil(threshold * grams.length));
+            int probe = grams.length - minShared + 1;
+
+            Map<Integer, Double> scores = new HashMap<>();
+            BitSet visited = new BitSet(slots.size());
+            for (int l = 0; l < lists.size() && l < probe; l++) {
+                Postings list = lists.get(l);
+                for (int i = 0; i < list.size; i++) {
+                    int docId = list.docs[i];
+                    if (visited.get(docId)) {
+                        continue;
+                    }
+                    visited.set(docId);
+                    Slot slot = slots.get(docId);
+                    if (slot == null || !slot.document.isActive()) {
+                        continue;
+                    }
+                    int common = Trigrams.shared(grams, slot.trigrams);
+                    if (common < minShared) {
+                        continue;
+                    }
+                    double similarity = (double) common / grams.length;
+                    double jaccard = (double) common / (grams.length + slot.trigrams.length - common);
+                    scores.put(docId, similarity + jaccard / 1000);
+                }
+            }
+            return topK(scores, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca productos con filtros y cuenta, en la misma pasada, las facetas de
+     * categoría, estado y rango de precio sobre las coincidencias del texto.
+     *
+     * Cada faceta se cuenta aplicando los demás filtros pero no el suyo, para
+     * que la barra lateral muestre cuántos productos habría al cambiar esa selección.
+     * Con una consulta vacía se recorren todos los documentos en orden de indexación.
+     *
+     * @param query Texto de búsqueda (puede estar vacío)
+     * @param filter Filtros seleccionados
+     * @param priceBounds Límites ascendentes de los rangos de precio
+     * @param order Orden de los resultados, o null para ordenar por relevancia
+     * @param offset Número de resultados a saltar
+     * @param limit Número máximo de resultados a devolver
+     * @return Página de IDs, total filtrado y conteos por faceta
+     */
+    public FacetedHits facetedSearch(String query, FacetFilter filter, BigDecimal[] priceBounds,
+                                     Comparator<ProductDocument> order, int offset, int limit) {
+        List<String> terms = TextAnalyzer.tokenize(query);
+        lock.readLock().lock();
+        try {
+            BitSet allowedCategories = new BitSet(categoryNames.size());
+            for (int c = 0; c < categoryNames.size(); c++) {
+                if (filter.acceptsCategory(categoryNames.get(c))) {
+                    allowedCategories.set(c);
+                }
+            }
+            boolean allowsUncategorized = filter.acceptsCategory(null);
+            int[] categoryCounts = new int[categoryNames.size()];
+            int[] statusCounts = new int[ProductStatus.values().length];
+            int[] priceCounts = new int[priceBounds.length + 1];
+
+            Map<Integer, Double> scores = terms.isEmpty() ? null : score(terms, false);
+            Map<Integer, Double> selected = new HashMap<>();
+            List<ProductDocument> matched = new ArrayList<>();
+            List<UUID> page = new ArrayList<>();
+            int total = 0;
+            int candidates = scores == null ? slots.size() : scores.size();
+            Iterator<Integer> scored = scores == null ? null : scores.keySet().iterator();
+            for (int i = 0; i < candidates; i++) {
+                int docId = scored == null ? i : scored.next();
+                Slot slot = slots.get(docId);
+                if (slot == null) {
+                    continue;
+                }
+                ProductDocument document = slot.document;
+                boolean category = slot.category < 0 ? allowsUncategorized : allowedCategories.get(slot.category);
+                boolean status = document.getStatus() != null && filter.acceptsStatus(document.getStatus());
+                boolean price = filter.acceptsPrice(document.getPrice());
+                if (status && price && slot.category >= 0) {
+                    categoryCounts[slot.category]++;
+                }
+                if (category && price && document.getStatus() != null) {
+                    statusCounts[document.getStatus().ordinal()]++;
+                }
+                if (category && status && document.getPrice() != null) {
+                    priceCounts[bucket(document.getPrice(), priceBounds)]++;
+                }
+                if (category && status && price) {
+                    if (order != null) {
+                        matched.add(document);
+                    } else if (scores != null) {
+                        selected.put(docId, scores.get(docId));
+                    } else if (total >= offset && page.size() < limit) {
+                        page.add(document.getId());
+                    }
+                    total++;
+                }
+            }
+            if (order != null) {
+                // Con un orden explícito se ordenan todas las coincidencias y luego se pagina
+                matched.sort(order);
+                for (int i = offset; i < Math.min(matched.size(), offset + limit); i++) {
+                    page.add(matched.get(i).getId());
+                }
+            } else if (scores != null) {
+                page = topK(selected, offset, limit).getIds();
+            }
+
+            Map<String, Integer> categories = new HashMap<>();
+            for (int c = 0; c < categoryCounts.length; c++) {
+                if (categoryCounts[c] > 0) {
+                    categories.put(categoryNames.get(c), categoryCounts[c]);
+                }
+            }
+            Map<ProductStatus, Integer> statuses = new EnumMap<>(ProductStatus.class);
+            for (ProductStatus value : ProductStatus.values()) {
+                statuses.put(value, statusCounts[value.ordinal()]);
+            }
+            return new FacetedHits(page, total, categories, statuses, priceCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Número de productos activos indexados.
+     */
+    public int activeSize() {
+        lock.readLock().lock();
+        try {
+            return activeCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Integer, Double> score(List<String> terms, boolean activeOnly) {
+        Map<Integer, Double> scores = new HashMap<>();
+        if (liveCount == 0) {
+            return scores;
+        }
+        double avgLength = (double) totalLength / liveCount;
+        String last = terms.get(terms.size() - 1);
+        for (String term : new LinkedHashSet<>(terms)) {
+            Postings exact = postings.get(term);
+            if (exact != null) {
+                accumulate(exact, 1.0, avgLength, activeOnly, scores);
+            }
+            if (term.equals(last)) {
+                int expanded = 0;
+                for (Map.Entry<String, Postings> entry : postings.subMap(term, false, term + Character.MAX_VALUE, false).entrySet()) {
+                    if (expanded++ >= MAX_PREFIX_EXPANSIONS) {
+                        break;
+                    }
+                    accumulate(entry.getValue(), PREFIX_WEIGHT, avgLength, activeOnly, scores);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private void accumulate(Postings list, double weight, double avgLength, boolean activeOnly,
+                            Map<Integer, Double> scores) {
+        double idf = Math.log(1 + (liveCount - list.live + 0.5) / (list.live + 0.5));
+        for (int i = 0; i < list.size; i++) {
+            int docId = list.docs[i];
+            Slot slot = slots.get(docId);
+            if (slot == null || (activeOnly && !slot.document.isActive())) {
+                continue;
+            }
+            int tf = list.freqs[i];
+            double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * slot.length / avgLength));
+            scores.merge(docId, weight * idf * norm, Double::sum);
+        }
+    }
+
+    private Hits topK(Map<Integer, Double> scores, int offset, int limit) {
+        int k = offset + limit;
+        Comparator<Map.Entry<Integer, Double>> byScore = Map.Entry.<Integer, Double>comparingByValue()
+                .thenComparing(Map.Entry.<Integer, Double>comparingByKey().reversed());
+        PriorityQueue<Map.Entry<Integer, Double>> heap = new PriorityQueue<>(Math.max(1, k), byScore);
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            if (heap.size() < k) {
+                heap.add(entry);
+            } else if (k > 0 && byScore.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(heap);
+        ranked.sort(byScore.reversed());
+        List<UUID> ids = new ArrayList<>();
+        for (int i = offset; i < ranked.size(); i++) {
+            ids.add(slots.get(ranked.get(i).getKey()).document.getId());
+        }
+        return new Hits(ids, scores.size());
+    }
+
+    private Hits matchAll(int offset, int limit) {
+        List<UUID> ids = new ArrayList<>();
+        int seen = 0;
+        for (int i = 0; i < slots.size() && ids.size() < limit; i++) {
+            Slot slot = slots.get(i);
+            if (slot == null || !slot.document.isActive()) {
+                continue;
+            }
+            if (seen++ >= offset) {
+                ids.add(slot.document.getId());
+            }
+        }
+        return new Hits(ids, activeCount);
+    }
+
+    private void add(ProductDocument document) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        addTerms(frequencies, document.getName(), NAME_WEIGHT);
+        addTerms(frequencies, document.getCategoryName(), CATEGORY_WEIGHT);
+        addTerms(frequencies, document.getDescription(), DESCRIPTION_WEIGHT);
+
+        int docId = slots.size();
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new Postings()).add(docId, entry.getValue());
+            length += entry.getValue();
+        }
+        long[] grams = Trigrams.of(document.getName());
+        for (long gram : grams) {
+            trigramPostings.computeIfAbsent(gram, g -> new Postings()).add(docId, 1);
+        }
+        int category = -1;
+        if (document.getCategoryName() != null) {
+            category = categoryIds.computeIfAbsent(document.getCategoryName(), name -> {
+                categoryNames.add(name);
+                return categoryNames.size() - 1;
+            });
+        }
+        slots.add(new Slot(document, frequencies.keySet().toArray(new String[0]), grams, length, category));
+        docIds.put(document.getId(), docId);
+        totalLength += length;
+        liveCount++;
+        if (document.isActive()) {
+            activeCount++;
+        }
+    }
+
+    /**
+     * Rango de precio al que pertenece el valor: 0 por debajo del primer límite,
+     * bounds.length desde el último límite en adelante.
+     */
+    private static int bucket(BigDecimal price, BigDecimal[] bounds) {
+        int low = 0;
+        int high = bounds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (price.compareTo(bounds[mid]) >= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static void addTerms(Map<String, Integer> frequencies, String text, int weight) {
+        for (String token : TextAnalyzer.tokenize(text)) {
+            frequencies.merge(token, weight, Integer::sum);
+        }
+    }
+
+    private void delete(UUID productId) {
+        Integer docId = docIds.remove(productId);
+        if (docId == null) {
+            return;
+        }
+        Slot slot = slots.set(docId, null);
+        for (String term : slot.terms) {
+            Postings list = postings.get(term);
+            if (list != null && --list.live == 0) {
+                postings.remove(term);
+            }
+        }
+        for (long gram : slot.trigrams) {
+            Postings list = trigramPostings.get(gram);
+            if (list != null && --list.live == 0) {
+                trigramPostings.remove(gram);
+            }
+        }
+        totalLength -= slot.length;
+        liveCount--;
+        if (slot.document.isActive()) {
+            activeCount--;
+        }
+        deletedCount++;
+    }
+
+    /**
+     * Reasigna identificadores internos descartando los documentos borrados.
+     * El orden relativo se conserva, así que las listas siguen ordenadas.
+     */
+    private void compactIfNeeded() {
+        if (deletedCount < COMPACTION_THRESHOLD || deletedCount < liveCount) {
+            return;
+        }
+        int[] remap = new int[slots.size()];
+        ArrayList<Slot> compacted = new ArrayList<>(liveCount);
+        for (int i = 0; i < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            if (slot == null) {
+                remap[i] = -1;
+            } else {
+                remap[i] = compacted.size();
+                compacted.add(slot);
+                docIds.put(slot.document.getId(), remap[i]);
+            }
+        }
+        for (Postings list : postings.values()) {
+            list.remap(remap);
+        }
+        for (Postings list : trigramPostings.values()) {
+            list.remap(remap);
+        }
+        slots.clear();
+        slots.addAll(compacted);
+        deletedCount = 0;
+    }
+
+    /**
+     * Resultado de una búsqueda: IDs de la página y total de coincidencias.
+     */
+    public static final class Hits {
+        private final List<UUID> ids;
+        private final int total;
+
+        Hits(List<UUID> ids, int total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public List<UUID> getIds() { return ids; }
+
+        public int getTotal() { return total; }
+    }
+
+    /**
+     * Resultado de una búsqueda facetada: página, total filtrado y conteos.
+     * Los conteos de precio siguen el orden de los rangos (uno más que límites).
+     */
+    public static final class FacetedHits {
+        private final List<UUID> ids;
+        private final int total;
+        private final Map<String, Integer> categoryCounts;
+        private final Map<ProductStatus, Integer> statusCounts;
+        private final int[] priceCounts;
+
+        FacetedHits(List<UUID> ids, int total, Map<String, Integer> categoryCounts,
+                    Map<ProductStatus, Integer> statusCounts, int[] priceCounts) {
+            this.ids = ids;
+            this.total = total;
+            this.categoryCounts = categoryCounts;
+            this.statusCounts = statusCounts;
+            this.priceCounts = priceCounts;
+        }
+
+        public List<UUID> getIds() { return ids; }
+
+        public int getTotal() { return total; }
+
+        public Map<String, Integer> getCategoryCounts() { return categoryCounts; }
+
+        public Map<ProductStatus, Integer> getStatusCounts() { return statusCounts; }
+
+        public int[] getPriceCounts() { return priceCounts; }
+    }
+
+    private static final class Slot {
+        final ProductDocument document;
+        final String[] terms;
+        final long[] trigrams;
+        final int length;
+        /** Número de la categoría en el diccionario; -1 si no tiene */
+        final int category;
+
+        Slot(ProductDocument document, String[] terms, long[] trigrams, int length, int category) {
+            this.document = document;
+            this.terms = terms;
+            this.trigrams = trigrams;
+            this.length = length;
+            this.category = category;
+        }
+    }
+
+    /**
+     * Lista de documentos de un término con arreglos primitivos crecientes.
+     */
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int size;
+        int live;
+
+        void add(int docId, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = docId;
+            freqs[size] = freq;
+            size++;
+            live++;
+        }
+
+        void remap(int[] remap) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int target = remap[docs[i]];
+                if (target >= 0) {
+                    docs[kept] = target;
+                    freqs[kept] = freqs[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            live = kept;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * Sugerencia de autocompletado.
+ * Texto sugerido, su tipo y su peso de popularidad.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.search;
+
+/**
+ * Resultado devuelto por el endpoint de autocompletado.
+ * El tipo indica si el texto es el nombre de un producto o de una categoría.
+ */
+public class Suggestion {
+
+    private final String text;
+    private final String type;
+    private final long weight;
+
+    public Suggestion(String text, String type, long weight) {
+        this.text = text;
+        this.type = type;
+        this.weight = weight;
+    }
+
+    public String getText() { return text; }
+
+    public String getType() { return type; }
+
+    public long getWeight() { return weight; }
+}
@@ -0,0 +1,426 @@
+/**
+ * Índice de autocompletado por prefijo.
+ * Sugiere nombres de productos y categorías ordenados por popularidad.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trie radix (con aristas comprimidas) sobre nombres de productos activos y categorías.
+ *
+ * Cada nodo guarda en caché las mejores sugerencias de su subárbol, así que
+ * responder a un prefijo cuesta lo que mide el prefijo y no el catálogo.
+ * Comprimir las aristas mantiene el número de nodos por debajo del doble de
+ * las entradas. Las altas, cambios y bajas solo recalculan el camino afectado.
+ *
+ * Varios productos con el mismo nombre comparten una entrada cuyo peso es la
+ * suma de sus popularidades; una categoría pesa tanto como productos activos tenga.
+ */
+@Component
+public class SuggestionIndex {
+
+    /** Número de sugerencias guardadas por nodo (máximo que se puede pedir) */
+    public static final int TOP_N = 10;
+
+    /** Longitud máxima de clave indexada */
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private static final String PRODUCT = "product";
+    private static final String CATEGORY = "category";
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private static final Comparator<Entry> BY_WEIGHT = Comparator.<Entry>comparingLong(e -> e.weight).reversed()
+            .thenComparing(e -> e.text);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = new Node("");
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<UUID, Contribution> contributions = new HashMap<>();
+
+    /**
+     * Reemplaza todo el contenido del índice.
+     *
+     * @param documents Documentos de todos los productos
+     * @param popularity Popularidad conocida por producto (por ejemplo, likes)
+     */
+    public void rebuild(Collection<ProductDocument> documents, Map<UUID, Long> popularity) {
+        lock.writeLock().lock();
+        try {
+            root = new Node("");
+            entries.clear();
+            contributions.clear();
+            for (ProductDocument document : documents) {
+                add(document, popularity.getOrDefault(document.getId(), 0L));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Agrega o actualiza un producto. Si ya no está activo, deja de sugerirse.
+     *
+     * @param document Documento del producto creado o actualizado
+     * @param popularity Popularidad actual del producto
+     */
+    public void upsert(ProductDocument document, long popularity) {
+        lock.writeLock().lock();
+        try {
+            subtract(contributions.remove(document.getId()));
+            add(document, popularity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un producto de las sugerencias.
+     *
+     * @param productId ID del producto eliminado
+     */
+    public void remove(UUID productId) {
+        lock.writeLock().lock();
+        try {
+            subtract(contributions.remove(productId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Suma popularidad a un producto ya indexado (por ejemplo, un nuevo like).
+     *
+     * @param productId ID del producto
+     * @param delta Cantidad a sumar
+     */
+    public void addPopularity(UUID productId, long delta) {
+        lock.writeLock().lock();
+        try {
+            Contribution contribution = contributions.get(productId);
+            if (contribution == null) {
+                return;
+            }
+            contribution.weight += delta;
+            Entry entry = entries.get(contribution.productKey);
+            entry.weight += delta;
+            refresh(entry.key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Devuelve las sugerencias más populares que empiezan por el prefijo.
+     *
+     * @param prefix Texto escrito por el usuario (se ignoran acentos y mayúsculas)
+     * @param limit Número de sugerencias (como máximo TOP_N)
+     * @return Sugerencias ordenadas por peso descendente
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        List<Suggestion> result = new ArrayList<>();
+        if (key.isEmpty()) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            Node node = find(key);
+            if (node == null) {
+                return result;
+            }
+            for (int i = 0; i < node.top.length && i < limit; i++) {
+                Entry entry = node.top[i];
+                result.add(new Suggestion(entry.text, entry.type, entry.weight));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(ProductDocument document, long popularity) {
+        if (!document.isActive() || normalize(document.getName()).isEmpty()) {
+            return;
+        }
+        long weight = 1 + Math.max(0, popularity);
+        Contribution contribution = new Contribution(
+                increment(PRODUCT, document.getName(), weight),
+                normalize(document.getCategoryName()).isEmpty() ? null : increment(CATEGORY, document.getCategoryName(), 1),
+                weight);
+        contributions.put(document.getId(), contribution);
+    }
+
+    private void subtract(Contribution contribution) {
+        if (contribution == null) {
+            return;
+        }
+        decrement(contribution.productKey, contribution.weight);
+        if (contribution.categoryKey != null) {
+            decrement(contribution.categoryKey, 1);
+        }
+    }
+
+    private String increment(String type, String text, long weight) {
+        String key = normalize(text);
+        String id = type + ":" + key;
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            entry = new Entry(key, text.trim(), type);
+            entries.put(id, entry);
+            insert(entry);
+        }
+        entry.refs++;
+        entry.weight += weight;
+        refresh(key);
+        return id;
+    }
+
+    private void decrement(String id, long weight) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return;
+        }
+        entry.refs--;
+        entry.weight -= weight;
+        if (entry.refs <= 0) {
+            entries.remove(id);
+            delete(entry);
+        } else {
+            refresh(entry.key);
+        }
+    }
+
+    private void insert(Entry entry) {
+        String key = entry.key;
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int index = childIndex(node, key.charAt(i));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(i));
+                leaf.ends = new Entry[] { entry };
+                node.children = insertChild(node.children, -index - 1, leaf);
+                return;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // Divide la arista: el nodo intermedio conserva el tramo común
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children = new Node[] { child };
+                node.children[index] = middle;
+                child = middle;
+            }
+            node = child;
+            i += common;
+        }
+        node.ends = append(node.ends, entry);
+    }
+
+    private void delete(Entry entry) {
+        List<Node> path = path(entry.key);
+        if (path == null) {
+            return;
+        }
+        Node node = path.get(path.size() - 1);
+        node.ends = without(node.ends, entry);
+        for (int p = path.size() - 1; p > 0; p--) {
+            Node current = path.get(p);
+            Node parent = path.get(p - 1);
+            if (current.ends.length == 0 && current.children.length == 0) {
+                parent.children = withoutChild(parent.children, current);
+            } else if (current.ends.length == 0 && current.children.length == 1) {
+                // Fusiona el nodo con su único hijo para mantener las aristas comprimidas
+                Node only = current.children[0];
+                current.label = current.label + only.label;
+                current.children = only.children;
+                current.ends = only.ends;
+                current.top = only.top;
+            }
+        }
+        recompute(path);
+    }
+
+    /**
+     * Recalcula las mejores sugerencias en el camino hacia la clave.
+     */
+    private void refresh(String key) {
+        List<Node> path = path(key);
+        if (path != null) {
+            recompute(path);
+        }
+    }
+
+    private void recompute(List<Node> path) {
+        for (int p = path.size() - 1; p >= 0; p--) {
+            Node node = path.get(p);
+            List<Entry> candidates = new ArrayList<>(Arrays.asList(node.ends));
+            for (Node child : node.children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            candidates.sort(BY_WEIGHT);
+            node.top = candidates.subList(0, Math.min(TOP_N, candidates.size())).toArray(NO_ENTRIES);
+        }
+    }
+
+    private List<Node> path(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            int index = childIndex(node, key.charAt(i));
+            if (index < 0) {
+                return null;
+            }
+            node = node.children[index];
+            if (!key.startsWith(node.label, i)) {
+                return null;
+            }
+            path.add(node);
+            i += node.label.length();
+        }
+        return path;
+    }
+
+    /**
+     * Busca el nodo cuyo subárbol contiene todas las claves con el prefijo.
+     */
+    private Node find(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            int index = childIndex(node, prefix.charAt(i));
+            if (index < 0) {
+                return null;
+            }
+            node = node.children[index];
+            int remaining = prefix.length() - i;
+            if (remaining <= node.label.length()) {
+                return node.label.startsWith(prefix.substring(i)) ? node : null;
+            }
+            if (!prefix.startsWith(node.label, i)) {
+                return null;
+            }
+            i += node.label.length();
+        }
+        return node;
+    }
+
+    private static String normalize(String text) {
+        String folded = String.join(" ", TextAnalyzer.fold(text).trim().split("\\s+"));
+        return folded.length() > MAX_KEY_LENGTH ? folded.substring(0, MAX_KEY_LENGTH) : folded;
+    }
+
+    /**
+     * Búsqueda binaria del hijo por su primer carácter; negativo si no existe.
+     */
+    private static int childIndex(Node node, char c) {
+        int low = 0;
+        int high = node.children.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char current = node.children[mid].label.charAt(0);
+            if (current < c) {
+                low = mid + 1;
+            } else if (current > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static Node[] insertChild(Node[] children, int position, Node child) {
+        Node[] result = new Node[children.length + 1];
+        System.arraycopy(children, 0, result, 0, position);
+        result[position] = child;
+        System.arraycopy(children, position, result, position + 1, children.length - position);
+        return result;
+    }
+
+    private static Node[] withoutChild(Node[] children, Node child) {
+        Node[] result = new Node[children.length - 1];
+        int j = 0;
+        for (Node current : children) {
+            if (current != child) {
+                result[j++] = current;
+            }
+        }
+        return result.length == 0 ? NO_CHILDREN : result;
+    }
+
+    private static Entry[] append(Entry[] array, Entry entry) {
+        Entry[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = entry;
+        return result;
+    }
+
+    private static Entry[] without(Entry[] array, Entry entry) {
+        return Arrays.stream(array).filter(e -> e != entry).toArray(Entry[]::new);
+    }
+
+    private static final class Node {
+        String label;
+        Node[] children = NO_CHILDREN;
+        Entry[] ends = NO_ENTRIES;
+        Entry[] top = NO_ENTRIES;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final class Entry {
+        final String key;
+        final String text;
+        final String type;
+        long weight;
+        int refs;
+
+        Entry(String key, String text, String type) {
+            this.key = key;
+            this.text = text;
+            this.type = type;
+        }
+    }
+
+    /**
+     * Aporte de un producto a las entradas de su nombre y su categoría.
+     */
+    private static final class Contribution {
+        final String productKey;
+        final String categoryKey;
+        long weight;
+
+        Contribution(String productKey, String categoryKey, long weight) {
+            this.productKey = productKey;
+            this.categoryKey = categoryKey;
+            this.weight = weight;
+        }
+    }
+}
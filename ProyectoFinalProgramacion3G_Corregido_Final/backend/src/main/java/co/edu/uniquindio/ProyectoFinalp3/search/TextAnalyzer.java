@@ -0,0 +1,70 @@
+/**
+ * Analizador de texto para búsqueda.
+ * Normaliza acentos y mayúsculas y divide el texto en términos.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Utilidades de análisis de texto compartidas por los índices en memoria.
+ * Convierte "Cámara Réflex" en los términos "camara" y "reflex".
+ */
+public final class TextAnalyzer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    /**
+     * Palabras vacías en español que no aportan a la relevancia.
+     */
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los",
+            "o", "para", "por", "sin", "su", "sus", "un", "una", "unos", "unas", "y"
+    );
+
+    private TextAnalyzer() {}
+
+    /**
+     * Pasa el texto a minúsculas y elimina acentos y diéresis.
+     *
+     * @param text Texto original (puede ser null)
+     * @return Texto normalizado, vacío si el original es null
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Divide el texto en términos normalizados, omitiendo palabras vacías.
+     *
+     * @param text Texto original (puede ser null)
+     * @return Lista de términos en el orden en que aparecen
+     */
+    public static List<String> tokenize(String text) {
+        String folded = fold(text);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean letterOrDigit = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (letterOrDigit && start < 0) {
+                start = i;
+            } else if (!letterOrDigit && start >= 0) {
+                String token = folded.substring(start, i);
+                if (!STOPWORDS.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Utilidades de trigramas.
+ * Extraen trigramas de un texto y miden la similitud entre dos conjuntos.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.search;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Trigramas al estilo pg_trgm: cada palabra se rellena con dos espacios al
+ * inicio y uno al final ("cafe" produce "  c", " ca", "caf", "afe", "fe ").
+ * Cada trigrama se codifica en un long para evitar crear cadenas.
+ */
+public final class Trigrams {
+
+    private Trigrams() {}
+
+    /**
+     * Extrae los trigramas únicos del texto, ordenados ascendentemente.
+     *
+     * @param text Texto original (se normaliza con TextAnalyzer)
+     * @return Arreglo ordenado de trigramas codificados
+     */
+    public static long[] of(String text) {
+        List<String> tokens = TextAnalyzer.tokenize(text);
+        int capacity = 0;
+        for (String token : tokens) {
+            capacity += token.length() + 1;
+        }
+        long[] grams = new long[capacity];
+        int count = 0;
+        for (String token : tokens) {
+            String padded = "  " + token + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams[count++] = encode(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2));
+            }
+        }
+        Arrays.sort(grams, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || grams[unique - 1] != grams[i]) {
+                grams[unique++] = grams[i];
+            }
+        }
+        return unique == grams.length ? grams : Arrays.copyOf(grams, unique);
+    }
+
+    /**
+     * Cuenta los trigramas compartidos entre dos arreglos ordenados.
+     */
+    public static int shared(long[] a, long[] b) {
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                count++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return count;
+    }
+
+
+    private static long encode(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+}
@@ -4,8 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import co.edu.uniquindio.ProyectoFinalp3.models.Product;
-import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductSummary;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -33,8 +32,8 @@ public class AiAssistantService {
     }
 
     public String chat(String userMessage) throws Exception {
-        // Construir contexto con catálogo activo/available desde la base real (Neon)
-        List<Product> catalog = productService.getActiveProducts(ProductStatus.ACTIVE);
+        // Construir contexto con catálogo activo/available (foto en memoria o base real)
+        List<ProductSummary> catalog = productService.getActiveCatalog();
 
         // Si el catálogo está vacío, responder determinísticamente sin inventar datos
         if (catalog == null || catalog.isEmpty()) {
@@ -43,7 +42,7 @@ public class AiAssistantService {
 
         String catalogSummary = catalog.stream()
                 .limit(12)
-                .map(p -> String.format("- %s (%.2f) [%s]", p.getName(), p.getPrice(), p.getCategory() != null ? p.getCategory().getName() : "sin categoría"))
+                .map(p -> String.format("- %s (%.2f) [%s]", p.getName(), p.getPrice(), p.getCategory() != null ? p.getCategory() : "sin categoría"))
                 .collect(Collectors.joining("\n"));
 
         // Respuesta segura para consultas de disponibilidad/listado: nunca inventar
@@ -61,7 +60,7 @@ public class AiAssistantService {
         if (groqApiKey == null || groqApiKey.isBlank()) {
             // Heurística: si pide "añadir" o "agregar", intenta sugerir producto coincidente
             if (lower.contains("añadir") || lower.contains("agregar") || lower.contains("carrito")) {
-                Product match = catalog.stream()
+                ProductSummary match = catalog.stream()
                         .filter(p -> lower.contains(p.getName().toLowerCase(Locale.ROOT)))
                         .findFirst()
                         .orElse(catalog.stream().findFirst().orElse(null));
@@ -0,0 +1,492 @@
+/**
+ * Servicio de ofertas relámpago.
+ * Atiende las compras de productos muy demandados con una cola por producto.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.services;
+
+import co.edu.uniquindio.ProyectoFinalp3.catalog.TrendingTracker;
+import co.edu.uniquindio.ProyectoFinalp3.enums.OrderStatus;
+import co.edu.uniquindio.ProyectoFinalp3.exceptions.ProductoSinUnidadesDisponiblesException;
+import co.edu.uniquindio.ProyectoFinalp3.models.Order;
+import co.edu.uniquindio.ProyectoFinalp3.models.OrderItem;
+import co.edu.uniquindio.ProyectoFinalp3.models.Product;
+import co.edu.uniquindio.ProyectoFinalp3.models.User;
+import co.edu.uniquindio.ProyectoFinalp3.repository.OrderRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.ProductRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Modo oferta relámpago para productos seleccionados.
+ *
+ * Con muchos compradores a la vez, cada orden normal bloquea la misma fila de
+ * products y las peticiones se encolan en la base de datos ocupando conexiones.
+ * En este modo el stock se reparte primero en memoria: un contador atómico
+ * cargado al activar la oferta decide al instante quién alcanza unidades, y
+ * los que no alcanzan se rechazan sin tocar la base de datos.
+ *
+ * Las compras aceptadas entran a una cola propia del producto que vacía un solo
+ * hilo escritor. Cada lote se confirma en una transacción con un único UPDATE
+ * condicional por todas sus unidades y las órdenes se insertan por lotes, así
+ * la fila del producto se bloquea una vez por lote y no una vez por comprador.
+ * Las órdenes quedan pendientes de pago con su reserva, igual que las normales.
+ *
+ * Si el stock real es menor que el contador (por ejemplo, por una orden
+ * normal), el lote se ajusta al stock real y el resto se rechaza como agotado:
+ * el UPDATE condicional sigue siendo la garantía de no sobrevender. Las
+ * unidades que vuelven al stock durante la oferta (reservas vencidas, órdenes
+ * canceladas) se recuperan cuando el contador no alcanza para una compra: esa
+ * compra se rechaza al instante y se le pide al hilo escritor que vuelva a leer
+ * el stock real, a lo sumo una vez por intervalo, y le reste las unidades que
+ * siguen en cola. Así ningún comprador espera una consulta a la base de datos.
+ * Volver a activar la oferta fuerza esa lectura.
+ */
+@Service
+public class FlashSaleService {
+
+    private static final Logger log = LoggerFactory.getLogger(FlashSaleService.class);
+
+    /**
+     * Marca en la cola que pide al escritor releer el stock real.
+     */
+    private static final Attempt RESYNC = new Attempt(null, 0);
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private InventoryReservationService reservationService;
+
+    @Autowired
+    private TrendingTracker trendingTracker;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Compras confirmadas por transacción.
+     */
+    @Value("${app.orders.flash.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * Unidades máximas por compra en una oferta.
+     */
+    @Value("${app.orders.flash.max-per-order:10}")
+    private int maxPerOrder;
+
+    /**
+     * Tiempo mínimo entre lecturas del stock real cuando el contador se agota.
+     */
+    @Value("${app.orders.flash.resync-ms:1000}")
+    private long resyncMs;
+
+    private final Map<UUID, Sale> sales = new ConcurrentHashMap<>();
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Deja de aceptar compras y espera a que cada cola termine de guardarse.
+     */
+    @PreDestroy
+    public void stop() {
+        List<Sale> active = new ArrayList<>(sales.values());
+        sales.clear();
+        for (Sale sale : active) {
+            sale.active = false;
+        }
+        for (Sale sale : active) {
+            try {
+                sale.writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Activa la oferta relámpago de un producto con su stock actual.
+     * Si ya estaba activa, vuelve a leer el stock real para su contador.
+     *
+     * @return Unidades disponibles para la oferta
+     * @throws IllegalArgumentException si el producto no existe
+     */
+    public int enable(UUID productId) {
+        Sale current = sales.get(productId);
+        if (current != null) {
+            return resync(current, true);
+        }
+        Integer stock = productService.findAvailableQuantities(List.of(productId)).get(productId);
+        if (stock == null) {
+            throw new IllegalArgumentException("Product not found: " + productId);
+        }
+        Sale sale = new Sale(productId, stock);
+        Sale previous = sales.putIfAbsent(productId, sale);
+        if (previous != null) {
+            return previous.remaining.get();
+        }
+        sale.writer.start();
+        log.info("Oferta relámpago activada para el producto {} con {} unidades", productId, stock);
+        return stock;
+    }
+
+    /**
+     * Desactiva la oferta; las compras ya aceptadas se terminan de guardar.
+     *
+     * @return false si el producto no tenía oferta activa
+     */
+    public boolean disable(UUID productId) {
+        Sale sale = sales.remove(productId);
+        if (sale == null) {
+            return false;
+        }
+        sale.active = false;
+        return true;
+    }
+
+    /**
+     * Unidades que aún se pueden vender en la oferta.
+     *
+     * @return Unidades restantes, o null si el producto no tiene oferta activa
+     */
+    public Integer remaining(UUID productId) {
+        Sale sale = sales.get(productId);
+        return sale == null ? null : sale.remaining.get();
+    }
+
+    /**
+     * Intenta comprar unidades de un producto en oferta.
+     * El rechazo por agotado es inmediato y no consulta la base de datos; si el
+     * contador no alcanza, el escritor relee el stock para los siguientes compradores.
+     *
+     * @param productId Producto en oferta
+     * @param username Comprador
+     * @param quantity Unidades pedidas
+     * @return Orden pendiente de pago cuando el escritor confirma la compra; si al
+     *         confirmar ya no hay stock, termina con ProductoSinUnidadesDisponiblesException
+     * @throws ProductoSinUnidadesDisponiblesException si la oferta está agotada
+     * @throws IllegalArgumentException si no hay oferta activa o la cantidad no es válida
+     */
+    public CompletableFuture<Order> purchase(UUID productId, String username, int quantity)
+            throws ProductoSinUnidadesDisponiblesException {
+        Sale sale = sales.get(productId);
+        if (sale == null) {
+            throw new IllegalArgumentException("No flash sale is active for product: " + productId);
+        }
+        if (quantity < 1 || quantity > maxPerOrder) {
+            throw new IllegalArgumentException("Quantity must be between 1 and " + maxPerOrder);
+        }
+        if (!sale.take(quantity)) {
+            sale.requestResync();
+            throw soldOut(productId);
+        }
+        Attempt attempt = new Attempt(username, quantity);
+        sale.queue.add(attempt);
+        // Si la oferta se desactivó justo ahora, el escritor pudo terminar sin ver esta compra
+        if (!sale.active && sale.queue.remove(attempt)) {
+            sale.remaining.addAndGet(quantity);
+            sale.queued.addAndGet(-quantity);
+            throw new IllegalArgumentException("No flash sale is active for product: " + productId);
+        }
+        return attempt.result;
+    }
+
+    /**
+     * Ajusta el contador al stock real menos las unidades aún en cola. Las
+     * compras que entran durante el ajuste pueden dejarlo unas unidades por
+     * encima; el UPDATE condicional del escritor las rechaza. Lo llama el
+     * escritor de la oferta o quien la vuelve a activar, nunca un comprador.
+     *
+     * @param force false para no leer si la última lectura fue hace menos de resync-ms
+     * @return Unidades restantes de la oferta
+     */
+    private int resync(Sale sale, boolean force) {
+        synchronized (sale) {
+            long now = System.currentTimeMillis();
+            if (!force && now - sale.lastResync < resyncMs) {
+                return sale.remaining.get();
+            }
+            sale.lastResync = now;
+            int stock = productService.findAvailableQuantities(List.of(sale.productId)).getOrDefault(sale.productId, 0);
+            int available = Math.max(0, stock - sale.queued.get());
+            sale.remaining.set(available);
+            return available;
+        }
+    }
+
+    /**
+     * Guarda un lote de compras y entrega el resultado a cada comprador.
+     */
+    private void confirm(Sale sale, List<Attempt> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(sale, batch));
+        } catch (RuntimeException e) {
+            log.warn("No se pudo confirmar un lote de la oferta relámpago del producto {}", sale.productId, e);
+            // Nada se descontó en la base de datos: las unidades vuelven a la oferta
+            for (Attempt attempt : batch) {
+                if (attempt.error == null) {
+                    sale.remaining.addAndGet(attempt.quantity);
+                    attempt.order = null;
+                    attempt.error = e;
+                }
+            }
+        }
+        // Ya confirmadas en la base de datos o devueltas al contador: dejan de estar en cola
+        sale.queued.addAndGet(-units(batch));
+        int sold = 0;
+        for (Attempt attempt : batch) {
+            if (attempt.order != null) {
+                sold += attempt.quantity;
+                attempt.result.complete(attempt.order);
+            } else {
+                attempt.result.completeExceptionally(attempt.error);
+            }
+        }
+        if (sold > 0) {
+            trendingTracker.recordOrderUnits(sale.productId, sold);
+        }
+    }
+
+    /**
+     * Descuenta el stock del lote con un solo UPDATE y crea una orden por compra.
+     * Se ejecuta dentro de la transacción del lote.
+     */
+    private void write(Sale sale, List<Attempt> batch) {
+        Set<String> usernames = new HashSet<>();
+        for (Attempt attempt : batch) {
+            usernames.add(attempt.username);
+        }
+        Map<String, User> users = new HashMap<>();
+        for (User user : userRepository.findByUsernameIn(usernames)) {
+            users.put(user.getUsername(), user);
+        }
+        List<Attempt> valid = new ArrayList<>(batch.size());
+        for (Attempt attempt : batch) {
+            if (users.containsKey(attempt.username)) {
+                valid.add(attempt);
+            } else {
+                attempt.error = new IllegalArgumentException("User not found: " + attempt.username);
+                sale.remaining.addAndGet(attempt.quantity);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        List<Product> found = productRepository.findAllWithRelationsByIdIn(List.of(sale.productId));
+        if (found.isEmpty()) {
+            for (Attempt attempt : valid) {
+                attempt.error = new IllegalArgumentException("Product not found: " + sale.productId);
+            }
+            return;
+        }
+        Product product = found.get(0);
+
+        int total = units(valid);
+        while (!valid.isEmpty() && !productService.decrementStock(sale.productId, total)) {
+            // El stock real es menor que el contador: se atiende en orden de llegada lo que alcance
+            int stock = productService.findAvailableQuantities(List.of(sale.productId)).getOrDefault(sale.productId, 0);
+            List<Attempt> fitting = new ArrayList<>(valid.size());
+            int units = 0;
+            for (Attempt attempt : valid) {
+                if (units + attempt.quantity <= stock) {
+                    fitting.add(attempt);
+                    units += attempt.quantity;
+                } else {
+                    attempt.error = soldOut(sale.productId);
+                }
+            }
+            int left = stock - units;
+            sale.remaining.getAndUpdate(current -> Math.min(current, left));
+            valid = fitting;
+            total = units;
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        List<Order> orders = new ArrayList<>(valid.size());
+        for (Attempt attempt : valid) {
+            BigDecimal itemTotal = product.getPrice().multiply(BigDecimal.valueOf(attempt.quantity));
+            Order order = new Order();
+            order.setUser(users.get(attempt.username));
+            order.setStatus(OrderStatus.PENDING);
+            order.setOrderNumber(OrderService.generateOrderNumber());
+            order.setTotalAmount(itemTotal);
+            OrderItem item = new OrderItem(attempt.quantity, product);
+            item.setUnitPrice(product.getPrice());
+            item.setTotalPrice(itemTotal);
+            item.setOrder(order);
+            order.getOrderItems().add(item);
+            orders.add(order);
+        }
+        // Órdenes e items se insertan por lotes JDBC
+        List<Order> saved = orderRepository.saveAll(orders);
+        Map<UUID, Map<UUID, Integer>> holds = new HashMap<>();
+        for (int i = 0; i < saved.size(); i++) {
+            holds.put(saved.get(i).getId(), Map.of(sale.productId, valid.get(i).quantity));
+        }
+        Date reservedUntil = reservationService.holdAll(holds);
+        for (int i = 0; i < saved.size(); i++) {
+            saved.get(i).setReservedUntil(reservedUntil);
+            valid.get(i).order = saved.get(i);
+        }
+        productService.refreshStock(List.of(sale.productId));
+    }
+
+    private static int units(List<Attempt> attempts) {
+        int units = 0;
+        for (Attempt attempt : attempts) {
+            units += attempt.quantity;
+        }
+        return units;
+    }
+
+    private static ProductoSinUnidadesDisponiblesException soldOut(UUID productId) {
+        return new ProductoSinUnidadesDisponiblesException("Product sold out: " + productId);
+    }
+
+    /**
+     * Oferta activa de un producto: contador en memoria, cola y su único escritor.
+     */
+    private final class Sale implements Runnable {
+        final UUID productId;
+        final AtomicInteger remaining;
+        final BlockingQueue<Attempt> queue = new LinkedBlockingQueue<>();
+        final Thread writer;
+        volatile boolean active = true;
+
+        /**
+         * Unidades aceptadas que el escritor aún no ha guardado.
+         */
+        final AtomicInteger queued = new AtomicInteger();
+
+        volatile long lastResync = System.currentTimeMillis();
+
+        /**
+         * Hay una marca RESYNC en la cola que el escritor aún no atendió.
+         */
+        final AtomicBoolean resyncRequested = new AtomicBoolean();
+
+        Sale(UUID productId, int stock) {
+            this.productId = productId;
+            this.remaining = new AtomicInteger(stock);
+            this.writer = new Thread(this, "flash-sale-" + productId);
+            this.writer.setDaemon(true);
+        }
+
+        /**
+         * Aparta unidades del contador si alcanzan.
+         */
+        boolean take(int units) {
+            while (true) {
+                int current = remaining.get();
+                if (current < units) {
+                    return false;
+                }
+                if (remaining.compareAndSet(current, current - units)) {
+                    queued.addAndGet(units);
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Pide al escritor releer el stock, a lo sumo una vez por intervalo.
+         */
+        void requestResync() {
+            if (System.currentTimeMillis() - lastResync >= resyncMs && resyncRequested.compareAndSet(false, true)) {
+                queue.add(RESYNC);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Attempt first;
+                try {
+                    first = queue.poll(500, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (first == null) {
+                    if (!active) {
+                        return;
+                    }
+                    continue;
+                }
+                List<Attempt> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                boolean resyncNow = batch.remove(RESYNC);
+                if (!batch.isEmpty()) {
+                    confirm(this, batch);
+                }
+                if (resyncNow) {
+                    resyncRequested.set(false);
+                    try {
+                        resync(this, false);
+                    } catch (RuntimeException e) {
+                        log.warn("No se pudo releer el stock de la oferta relámpago del producto {}", productId, e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Compra en espera de confirmación.
+     */
+    private static final class Attempt {
+        final String username;
+        final int quantity;
+        final CompletableFuture<Order> result = new CompletableFuture<>();
+        Order order;
+        Throwable error;
+
+        Attempt(String username, int quantity) {
+            this.username = username;
+            this.quantity = quantity;
+        }
+    }
+}
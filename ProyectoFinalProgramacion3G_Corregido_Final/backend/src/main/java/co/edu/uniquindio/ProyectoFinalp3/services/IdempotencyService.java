@@ -0,0 +1,318 @@
+/**
+ * Servicio de claves de idempotencia.
+ * Recuerda la respuesta de cada petición para devolverla en los reintentos.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.services;
+
+import co.edu.uniquindio.ProyectoFinalp3.models.IdempotencyRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Almacén de respuestas por clave de idempotencia.
+ *
+ * Las respuestas terminadas se guardan en idempotency_keys y las más usadas
+ * también en un LRU en memoria, así un reintento se responde con una búsqueda
+ * por clave sin volver a ejecutar la orden o el pago.
+ *
+ * Para ejecutar una petición primero se reclama la clave con un INSERT: la
+ * clave primaria impide que dos instancias la ejecuten a la vez. Los duplicados
+ * de la misma instancia esperan el resultado de la original; los de otra
+ * instancia consultan la tabla hasta que termine. Si la original falla, la
+ * clave se libera y el siguiente que espera la ejecuta.
+ *
+ * Cada reclamo guarda un token de dueño y un plazo (lease_until) que esta
+ * instancia renueva mientras la petición se ejecuta, por lenta que sea. Solo
+ * se toma una clave cuyo plazo venció, es decir, cuyo dueño murió. complete y
+ * abandon actúan únicamente si el token sigue siendo el del reclamo.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final String CLAIM_SQL =
+            "INSERT INTO idempotency_keys (id, fingerprint, status, created_at, owner, lease_until) VALUES (?, ?, 0, ?, ?, ?)";
+
+    private static final String COMPLETE_SQL =
+            "UPDATE idempotency_keys SET status = ?, content_type = ?, response_body = ? WHERE id = ? AND owner = ? AND status = 0";
+
+    private static final String RENEW_SQL =
+            "UPDATE idempotency_keys SET lease_until = ? WHERE id = ? AND owner = ? AND status = 0";
+
+    private static final String TAKEOVER_SQL =
+            "DELETE FROM idempotency_keys WHERE id = ? AND status = 0 AND COALESCE(lease_until, created_at) < ?";
+
+    private static final String SELECT_SQL =
+            "SELECT id, fingerprint, status, content_type, response_body, created_at, owner, lease_until "
+                    + "FROM idempotency_keys WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Respuestas recordadas en memoria.
+     */
+    @Value("${app.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    /**
+     * Tiempo que se conserva cada clave.
+     */
+    @Value("${app.idempotency.ttl-ms:86400000}")
+    private long ttlMs;
+
+    /**
+     * Espera máxima de un duplicado mientras la petición original se ejecuta.
+     */
+    @Value("${app.idempotency.wait-ms:30000}")
+    private long waitMs;
+
+    /**
+     * Plazo de cada reclamo; se renueva cada tercio mientras la petición sigue en curso.
+     */
+    @Value("${app.idempotency.lease-ms:30000}")
+    private long leaseMs;
+
+    /**
+     * Pausa entre consultas cuando la original se ejecuta en otra instancia.
+     */
+    @Value("${app.idempotency.poll-ms:100}")
+    private long pollMs;
+
+    /**
+     * Intervalo entre borrados de claves vencidas.
+     */
+    @Value("${app.idempotency.sweep-ms:3600000}")
+    private long sweepMs;
+
+    private Map<String, IdempotencyRecord> cache;
+
+    /**
+     * Ejecuciones en curso en esta instancia; se completan con la respuesta o con null si fallan.
+     */
+    private final Map<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Token de dueño de cada clave reclamada por esta instancia y aún sin terminar.
+     */
+    private final Map<String, String> owners = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-keys");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                int deleted = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE created_at < ?",
+                        new Timestamp(System.currentTimeMillis() - ttlMs));
+                if (deleted > 0) {
+                    log.info("Se borraron {} claves de idempotencia vencidas", deleted);
+                }
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron borrar las claves de idempotencia vencidas", e);
+            }
+        }, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+        long renewMs = Math.max(1, leaseMs / 3);
+        scheduler.scheduleWithFixedDelay(this::renewLeases, renewMs, renewMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Reclama la clave o devuelve la respuesta ya guardada.
+     *
+     * @param id Clave interna (ruta más clave del cliente)
+     * @param fingerprint Huella de la petición
+     * @return null si quien llama debe ejecutar la petición y luego llamar a
+     *         complete o abandon; si no, el registro guardado. Con status 0 la
+     *         original seguía en curso al agotarse la espera.
+     */
+    public IdempotencyRecord begin(String id, String fingerprint) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + waitMs;
+        while (true) {
+            IdempotencyRecord cached = cached(id);
+            if (cached != null) {
+                return cached;
+            }
+            CompletableFuture<IdempotencyRecord> mine = new CompletableFuture<>();
+            CompletableFuture<IdempotencyRecord> running = inFlight.putIfAbsent(id, mine);
+            if (running == null) {
+                String owner = UUID.randomUUID().toString();
+                if (claim(id, fingerprint, owner)) {
+                    owners.put(id, owner);
+                    return null;
+                }
+                inFlight.remove(id, mine);
+                mine.complete(null);
+                IdempotencyRecord stored = load(id);
+                if (stored == null) {
+                    continue; // Se liberó entre el INSERT y la consulta
+                }
+                if (stored.getStatus() != 0) {
+                    cache.put(id, stored);
+                    return stored;
+                }
+                // La ejecuta otra instancia; solo se toma si su dueño dejó de renovar el plazo
+                if (jdbcTemplate.update(TAKEOVER_SQL, id, new Timestamp(System.currentTimeMillis())) > 0) {
+                    log.warn("Se tomó la clave de idempotencia {} cuyo dueño {} dejó de renovarla", id, stored.getOwner());
+                    continue;
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    return stored;
+                }
+                Thread.sleep(pollMs);
+                continue;
+            }
+            long left = deadline - System.currentTimeMillis();
+            try {
+                IdempotencyRecord done = running.get(Math.max(1, left), TimeUnit.MILLISECONDS);
+                if (done != null) {
+                    return done;
+                }
+                // La original falló y liberó la clave; se intenta reclamar de nuevo
+            } catch (TimeoutException e) {
+                IdempotencyRecord pending = new IdempotencyRecord();
+                pending.setId(id);
+                pending.setFingerprint(fingerprint);
+                return pending;
+            } catch (ExecutionException e) {
+                // No ocurre: las ejecuciones se completan con null al fallar
+            }
+        }
+    }
+
+    /**
+     * Guarda la respuesta de la petición original y despierta a los duplicados.
+     *
+     * @throws IllegalStateException si otra ejecución tomó la clave porque su plazo venció
+     */
+    public void complete(String id, String fingerprint, int status, String contentType, String body) {
+        String owner = owners.remove(id);
+        if (owner == null || jdbcTemplate.update(COMPLETE_SQL, status, contentType, body, id, owner) == 0) {
+            CompletableFuture<IdempotencyRecord> running = inFlight.remove(id);
+            if (running != null) {
+                running.complete(null);
+            }
+            throw new IllegalStateException("La clave de idempotencia " + id + " fue tomada por otra ejecución");
+        }
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(id);
+        record.setFingerprint(fingerprint);
+        record.setStatus(status);
+        record.setContentType(contentType);
+        record.setResponseBody(body);
+        record.setCreatedAt(new Date());
+        cache.put(id, record);
+        CompletableFuture<IdempotencyRecord> running = inFlight.remove(id);
+        if (running != null) {
+            running.complete(record);
+        }
+    }
+
+    /**
+     * Libera la clave de una petición que falló, para que un reintento la ejecute.
+     */
+    public void abandon(String id) {
+        try {
+            String owner = owners.remove(id);
+            if (owner != null) {
+                jdbcTemplate.update("DELETE FROM idempotency_keys WHERE id = ? AND owner = ? AND status = 0", id, owner);
+            }
+        } finally {
+            CompletableFuture<IdempotencyRecord> running = inFlight.remove(id);
+            if (running != null) {
+                running.complete(null);
+            }
+        }
+    }
+
+    private IdempotencyRecord cached(String id) {
+        IdempotencyRecord record = cache.get(id);
+        if (record != null && record.getCreatedAt().getTime() < System.currentTimeMillis() - ttlMs) {
+            cache.remove(id);
+            return null;
+        }
+        return record;
+    }
+
+    private boolean claim(String id, String fingerprint, String owner) {
+        long now = System.currentTimeMillis();
+        try {
+            jdbcTemplate.update(CLAIM_SQL, id, fingerprint, new Timestamp(now), owner, new Timestamp(now + leaseMs));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private IdempotencyRecord load(String id) {
+        List<IdempotencyRecord> rows = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> {
+            IdempotencyRecord record = new IdempotencyRecord();
+            record.setId(rs.getString(1));
+            record.setFingerprint(rs.getString(2));
+            record.setStatus(rs.getInt(3));
+            record.setContentType(rs.getString(4));
+            record.setResponseBody(rs.getString(5));
+            record.setCreatedAt(rs.getTimestamp(6));
+            record.setOwner(rs.getString(7));
+            record.setLeaseUntil(rs.getTimestamp(8));
+            return record;
+        }, id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Extiende el plazo de las claves que esta instancia sigue ejecutando.
+     */
+    private void renewLeases() {
+        if (owners.isEmpty()) {
+            return;
+        }
+        try {
+            Timestamp until = new Timestamp(System.currentTimeMillis() + leaseMs);
+            List<Object[]> rows = new ArrayList<>(owners.size());
+            owners.forEach((id, owner) -> rows.add(new Object[] { until, id, owner }));
+            jdbcTemplate.batchUpdate(RENEW_SQL, rows);
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron renovar los plazos de las claves de idempotencia", e);
+        }
+    }
+}
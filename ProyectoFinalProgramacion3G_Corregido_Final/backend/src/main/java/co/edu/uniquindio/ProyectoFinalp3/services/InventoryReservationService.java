@@ -0,0 +1,338 @@
+/**
+ * Servicio de reservas de inventario.
+ * Retiene el stock de órdenes pendientes y lo libera si no se pagan a tiempo.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.services;
+
+import co.edu.uniquindio.ProyectoFinalp3.repository.UuidBinary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reservas de stock con vencimiento.
+ *
+ * Al crear una orden el stock ya se descontó con UPDATE condicional; aquí se
+ * anota que esas unidades están retenidas hasta cierto momento. Si la orden se
+ * paga, PaymentService convierte la reserva en venta borrando sus filas. Si
+ * vence antes, un hilo propio devuelve las unidades al stock y cancela la orden.
+ *
+ * Las filas de inventory_reservations son el respaldo durable; en memoria se
+ * guarda un índice por orden y un conjunto ordenado por vencimiento, así el
+ * barrido toma directamente las reservas vencidas sin recorrer la tabla. El
+ * índice se carga de la tabla al arrancar.
+ *
+ * Pago y barrido compiten por las mismas filas: ambos las borran y solo el que
+ * borre alguna gana. El barrido las bloquea con SELECT ... FOR UPDATE antes de
+ * devolver el stock, y el pago confirma la orden con un UPDATE condicional que
+ * falla si el barrido ya la canceló.
+ */
+@Service
+public class InventoryReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryReservationService.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO inventory_reservations (id, order_id, product_id, quantity, expires_at) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String DELETE_SQL =
+            "DELETE FROM inventory_reservations WHERE order_id = ?";
+
+    private static final String RESTORE_STOCK_SQL =
+            "UPDATE products SET available_quantity = available_quantity + ?, version = version + 1 WHERE id = ?";
+
+    private static final String CANCEL_ORDER_SQL =
+            "UPDATE orders SET status = 'CANCELLED' WHERE id = ? AND status = 'PENDING'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Tiempo que una orden pendiente retiene su stock.
+     */
+    @Value("${app.orders.reservations.ttl-ms:900000}")
+    private long ttlMs;
+
+    /**
+     * Intervalo entre barridos de reservas vencidas.
+     */
+    @Value("${app.orders.reservations.sweep-ms:5000}")
+    private long sweepMs;
+
+    /**
+     * Órdenes liberadas por transacción de barrido.
+     */
+    @Value("${app.orders.reservations.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * Reservas activas por orden.
+     */
+    private final Map<UUID, Hold> holds = new ConcurrentHashMap<>();
+
+    /**
+     * Las mismas reservas ordenadas por vencimiento.
+     */
+    private final NavigableSet<Hold> expirations = new ConcurrentSkipListSet<>();
+
+    private TransactionTemplate transactionTemplate;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-reservations");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                sweep();
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron liberar las reservas vencidas", e);
+            }
+        }, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Carga en memoria las reservas guardadas antes del reinicio.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Map<UUID, Hold> loaded = new HashMap<>();
+        jdbcTemplate.query("SELECT order_id, expires_at FROM inventory_reservations", rs -> {
+            UUID orderId = UuidBinary.fromBytes(rs.getBytes(1));
+            long expiresAt = rs.getTimestamp(2).getTime();
+            Hold previous = loaded.get(orderId);
+            if (previous == null || expiresAt < previous.expiresAt) {
+                loaded.put(orderId, new Hold(orderId, expiresAt));
+            }
+        });
+        for (Hold hold : loaded.values()) {
+            index(hold);
+        }
+        if (!loaded.isEmpty()) {
+            log.info("Se cargaron {} reservas de inventario pendientes", loaded.size());
+        }
+    }
+
+    /**
+     * Registra la reserva del stock ya descontado para una orden.
+     * Debe llamarse dentro de la transacción que descontó el stock; el índice
+     * en memoria se actualiza solo si esa transacción se confirma.
+     *
+     * @param orderId ID de la orden pendiente
+     * @param lines Unidades retenidas por producto
+     * @return Momento de vencimiento de la reserva
+     */
+    @Transactional
+    public Date hold(UUID orderId, Map<UUID, Integer> lines) {
+        return holdAll(Map.of(orderId, lines));
+    }
+
+    /**
+     * Registra en un solo lote las reservas de varias órdenes, con el mismo vencimiento.
+     *
+     * @param lines Unidades retenidas por producto, por orden
+     * @return Momento de vencimiento de las reservas
+     */
+    @Transactional
+    public Date holdAll(Map<UUID, Map<UUID, Integer>> lines) {
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        Timestamp expires = new Timestamp(expiresAt);
+        List<Object[]> batch = new ArrayList<>();
+        List<Hold> added = new ArrayList<>(lines.size());
+        for (Map.Entry<UUID, Map<UUID, Integer>> order : lines.entrySet()) {
+            byte[] orderId = UuidBinary.toBytes(order.getKey());
+            for (Map.Entry<UUID, Integer> line : order.getValue().entrySet()) {
+                batch.add(new Object[] { UuidBinary.toBytes(UUID.randomUUID()), orderId,
+                        UuidBinary.toBytes(line.getKey()), line.getValue(), expires });
+            }
+            added.add(new Hold(order.getKey(), expiresAt));
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+        afterCommit(() -> added.forEach(this::index));
+        return new Date(expiresAt);
+    }
+
+    /**
+     * Convierte la reserva de la orden en venta: el stock queda descontado.
+     *
+     * @return true si la orden tenía una reserva activa
+     */
+    @Transactional
+    public boolean convert(UUID orderId) {
+        boolean converted = jdbcTemplate.update(DELETE_SQL, UuidBinary.toBytes(orderId)) > 0;
+        afterCommit(() -> unindex(orderId));
+        return converted;
+    }
+
+    /**
+     * Devuelve al stock las unidades reservadas por la orden, si aún las tiene.
+     * La orden no se modifica; quien llama decide qué hacer con ella.
+     */
+    @Transactional
+    public void release(UUID orderId) {
+        release(List.of(orderId), false);
+    }
+
+    /**
+     * Libera en lotes las reservas vencidas, cada lote en su transacción.
+     */
+    synchronized void sweep() {
+        long now = System.currentTimeMillis();
+        while (true) {
+            List<UUID> expired = new ArrayList<>();
+            for (Hold hold : expirations) {
+                if (hold.expiresAt > now || expired.size() == batchSize) {
+                    break;
+                }
+                expired.add(hold.orderId);
+            }
+            if (expired.isEmpty()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> release(expired, true));
+            // Se quitan aunque otra transacción las haya convertido: ya no retienen nada
+            for (UUID orderId : expired) {
+                unindex(orderId);
+            }
+            if (expired.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Borra las reservas de las órdenes, devuelve su stock y opcionalmente las cancela.
+     * Las filas se bloquean antes de leerlas, así un pago simultáneo espera y
+     * luego no encuentra nada que convertir.
+     */
+    private void release(Collection<UUID> orderIds, boolean cancelOrders) {
+        List<Object> args = new ArrayList<>(orderIds.size());
+        for (UUID orderId : orderIds) {
+            args.add(UuidBinary.toBytes(orderId));
+        }
+        String in = String.join(", ", Collections.nCopies(orderIds.size(), "?"));
+        Map<UUID, Integer> restored = new TreeMap<>();
+        Set<UUID> released = new LinkedHashSet<>();
+        jdbcTemplate.query("SELECT order_id, product_id, quantity FROM inventory_reservations WHERE order_id IN ("
+                + in + ") FOR UPDATE", rs -> {
+            released.add(UuidBinary.fromBytes(rs.getBytes(1)));
+            restored.merge(UuidBinary.fromBytes(rs.getBytes(2)), rs.getInt(3), Integer::sum);
+        }, args.toArray());
+        if (released.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM inventory_reservations WHERE order_id IN (" + in + ")", args.toArray());
+
+        // Productos en orden de ID, igual que al crear órdenes, para no interbloquearse con ellas
+        List<Object[]> stock = new ArrayList<>(restored.size());
+        for (Map.Entry<UUID, Integer> line : restored.entrySet()) {
+            stock.add(new Object[] { line.getValue(), UuidBinary.toBytes(line.getKey()) });
+        }
+        jdbcTemplate.batchUpdate(RESTORE_STOCK_SQL, stock);
+        if (cancelOrders) {
+            List<Object[]> orders = new ArrayList<>(released.size());
+            for (UUID orderId : released) {
+                orders.add(new Object[] { UuidBinary.toBytes(orderId) });
+            }
+            jdbcTemplate.batchUpdate(CANCEL_ORDER_SQL, orders);
+        }
+
+        productService.refreshStock(restored.keySet());
+        afterCommit(() -> released.forEach(this::unindex));
+        log.info("Se liberaron {} unidades reservadas de {} órdenes", restored.values().stream().mapToInt(Integer::intValue).sum(), released.size());
+    }
+
+    private void index(Hold hold) {
+        Hold previous = holds.put(hold.orderId, hold);
+        if (previous != null) {
+            expirations.remove(previous);
+        }
+        expirations.add(hold);
+    }
+
+    private void unindex(UUID orderId) {
+        Hold hold = holds.remove(orderId);
+        if (hold != null) {
+            expirations.remove(hold);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Reserva de una orden; se ordena por vencimiento y luego por orden.
+     */
+    private static final class Hold implements Comparable<Hold> {
+        final UUID orderId;
+        final long expiresAt;
+
+        Hold(UUID orderId, long expiresAt) {
+            this.orderId = orderId;
+            this.expiresAt = expiresAt;
+        }
+
+        @Override
+        public int compareTo(Hold other) {
+            int byTime = Long.compare(expiresAt, other.expiresAt);
+            return byTime != 0 ? byTime : orderId.compareTo(other.orderId);
+        }
+    }
+}
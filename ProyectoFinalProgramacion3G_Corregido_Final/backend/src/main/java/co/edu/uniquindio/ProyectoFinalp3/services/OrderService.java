@@ -4,6 +4,7 @@
  */
 package co.edu.uniquindio.ProyectoFinalp3.services;
 
+import co.edu.uniquindio.ProyectoFinalp3.catalog.TrendingTracker;
 import co.edu.uniquindio.ProyectoFinalp3.dto.OrderItemRequest;
 import co.edu.uniquindio.ProyectoFinalp3.enums.OrderStatus;
 import co.edu.uniquindio.ProyectoFinalp3.models.Order;
@@ -19,8 +20,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.UUID;
 
 @Service
@@ -35,6 +40,15 @@ public class OrderService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TrendingTracker trendingTracker;
+
+    @Autowired
+    private InventoryReservationService reservationService;
+
     @Transactional
     public Order createOrder(String username, List<OrderItemRequest> orderItemsRequest) {
         User user = userRepository.findByUsername(username)
@@ -47,34 +61,67 @@ public class OrderService {
 
         BigDecimal totalAmount = BigDecimal.ZERO;
 
+        // Las líneas repetidas del mismo producto se unen; el TreeMap deja los productos en orden de ID,
+        // así dos órdenes con productos en común bloquean las filas en el mismo orden y no se interbloquean
+        Map<UUID, Integer> quantities = new TreeMap<>();
         for (OrderItemRequest itemRequest : orderItemsRequest) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new IllegalArgumentException("Product not found: " + itemRequest.getProductId()));
+            if (itemRequest.getProductId() == null) {
+                throw new IllegalArgumentException("Product id is required");
+            }
+            quantities.merge(itemRequest.getProductId(), Math.max(1, itemRequest.getQuantity()), Integer::sum);
+        }
+        if (quantities.isEmpty()) {
+            throw new IllegalArgumentException("Order must contain at least one item");
+        }
 
-            // Validar stock disponible
-            Integer currentQty = product.getAvailableQuantity() == null ? 0 : product.getAvailableQuantity();
-            int requested = Math.max(1, itemRequest.getQuantity());
-            if (currentQty < requested) {
+        // Todos los productos en una sola consulta, con sus relaciones
+        Map<UUID, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllWithRelationsByIdIn(quantities.keySet())) {
+            products.put(product.getId(), product);
+        }
+        List<UUID> missing = new ArrayList<>();
+        for (UUID productId : quantities.keySet()) {
+            if (!products.containsKey(productId)) {
+                missing.add(productId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Product not found: " + missing);
+        }
+
+        for (Map.Entry<UUID, Integer> line : quantities.entrySet()) {
+            Product product = products.get(line.getKey());
+
+            // Validar y descontar stock en un solo UPDATE condicional; si no alcanza, se revierte toda la orden
+            int requested = line.getValue();
+            if (!productService.decrementStock(product.getId(), requested)) {
                 throw new IllegalArgumentException("Insufficient stock for product: " + product.getName());
             }
 
-            BigDecimal itemTotal = product.getPrice().multiply(BigDecimal.valueOf(itemRequest.getQuantity()));
+            BigDecimal itemTotal = product.getPrice().multiply(BigDecimal.valueOf(requested));
             totalAmount = totalAmount.add(itemTotal);
 
-            OrderItem orderItem = new OrderItem(itemRequest.getQuantity(), product);
+            OrderItem orderItem = new OrderItem(requested, product);
+            orderItem.setUnitPrice(product.getPrice());
+            orderItem.setTotalPrice(itemTotal);
             orderItem.setOrder(order); // Asocia el OrderItem con el Order
             order.getOrderItems().add(orderItem); // Añade el OrderItem a la lista
-
-            // Decrementar stock
-            product.setAvailableQuantity(currentQty - requested);
-            productRepository.save(product);
         }
+        productService.refreshStock(quantities.keySet());
 
         order.setTotalAmount(totalAmount);
-        return orderRepository.save(order);
+        // La orden y sus items se insertan con lotes JDBC (hibernate.jdbc.batch_size) al confirmarse
+        Order saved = orderRepository.save(order);
+        // El stock descontado queda retenido hasta que se pague la orden o venza la reserva
+        saved.setReservedUntil(reservationService.hold(saved.getId(), quantities));
+        // Las unidades vendidas cuentan para las tendencias solo si la orden se pudo crear
+        for (OrderItem item : saved.getOrderItems()) {
+            trendingTracker.recordOrderUnits(item.getProduct().getId(), item.getQuantity());
+        }
+        return saved;
     }
 
-    private String generateOrderNumber() {
+    static String generateOrderNumber() {
         return "ORD-" + UUID.randomUUID().toString().substring(0, 8);
     }
 
@@ -94,14 +141,11 @@ public class OrderService {
         }
 
         if (status == OrderStatus.CANCELLED) {
-            // Elimina la orden si el estado es "CANCELLED"
-            orderRepository.delete(order);
-            return null; // o lanza una excepción si prefieres manejar el caso en el controlador
-        } else {
-            // Si no está cancelada, solo actualiza el estado
-            order.setStatus(status);
-            return orderRepository.save(order);
+            // Igual que el barrido de reservas vencidas: devuelve el stock reservado y la orden queda CANCELLED
+            reservationService.release(orderId);
         }
+        order.setStatus(status);
+        return orderRepository.save(order);
     }
 
     public List<Order> getOrdersByUsername(String username) {
@@ -36,6 +36,9 @@ public class PaymentService {
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private InventoryReservationService reservationService;
+
     // Método para procesar un pago, se requiere el username del usuario y el orderId del pedido
     @Transactional
     public Payment processPayment(String username, UUID orderId, BigDecimal amount, PaymentType paymentType, PaymentMethod paymentMethod) {
@@ -49,6 +52,20 @@ public class PaymentService {
             throw new IllegalArgumentException("Amount is less than the order total amount.");
         }
 
+        // Solo se pagan órdenes pendientes; una cancelada ya devolvió su stock al inventario
+        if (order.getStatus() != OrderStatus.PENDING) {
+            throw new IllegalArgumentException("Order is not pending payment: " + order.getStatus());
+        }
+
+        // La reserva de stock de la orden pasa a ser venta firme
+        reservationService.convert(orderId);
+
+        // UPDATE condicional: si la reserva venció y el barrido canceló la orden después de leerla, no se confirma
+        if (orderRepository.updateStatusIf(orderId, OrderStatus.PENDING, OrderStatus.CONFIRMED) != 1) {
+            throw new IllegalArgumentException("The order reservation expired; please create the order again.");
+        }
+        order.setStatus(OrderStatus.CONFIRMED); // Actualizar el estado del pedido
+
         Payment payment = new Payment();
         payment.setAmount(amount);
         payment.setPaymentDate(new Date());
@@ -58,12 +75,6 @@ public class PaymentService {
         payment.setUser(user);
         payment.setStatus(PaymentStatus.COMPLETED);
 
-        // Verificar si la transición de estado es válida antes de actualizar la orden
-        if (order.getStatus().canTransitionTo(OrderStatus.CONFIRMED)) {
-            order.setStatus(OrderStatus.CONFIRMED); // Actualizar el estado del pedido
-            orderRepository.save(order); // Guardar el cambio en el pedido
-        }
-
         return paymentRepository.save(payment);
     }
 
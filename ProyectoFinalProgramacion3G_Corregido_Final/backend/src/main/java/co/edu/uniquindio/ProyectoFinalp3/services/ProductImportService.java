@@ -0,0 +1,505 @@
+/**
+ * Servicio de importación masiva de productos.
+ * Lee CSV o NDJSON en streaming y los inserta por lotes JDBC.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.services;
+
+import co.edu.uniquindio.ProyectoFinalp3.catalog.CatalogVersions;
+import co.edu.uniquindio.ProyectoFinalp3.dto.ImportResult;
+import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+import co.edu.uniquindio.ProyectoFinalp3.models.Category;
+import co.edu.uniquindio.ProyectoFinalp3.models.MarketPlace;
+import co.edu.uniquindio.ProyectoFinalp3.models.Product;
+import co.edu.uniquindio.ProyectoFinalp3.models.User;
+import co.edu.uniquindio.ProyectoFinalp3.repository.CategoryRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.MarketPlaceRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.UserRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.UuidBinary;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Importa productos sin cargar el archivo completo en memoria.
+ *
+ * El cuerpo se lee registro a registro y solo se retiene el lote en curso.
+ * Las categorías y el marketplace se resuelven una vez (las categorías nuevas
+ * se crean al aparecer) y cada lote se inserta con un único batchUpdate dentro
+ * de su propia transacción; con rewriteBatchedStatements el driver de MySQL
+ * lo envía como un INSERT de varias filas. Si un lote falla se reintenta fila
+ * a fila para informar exactamente qué líneas se rechazaron. Los productos
+ * insertados se propagan a los índices y a la foto del catálogo por lote.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO products (id, name, description, image_url, price, available_quantity, "
+                    + "category_id, status, user_id, market_place_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DEFAULT_CATEGORY = "Otros";
+    private static final String DEFAULT_MARKETPLACE = "AppMarket Demo";
+
+    /** Columnas reconocidas; la cabecera se compara sin mayúsculas, espacios ni guiones bajos */
+    private static final Map<String, String> COLUMNS = Map.of(
+            "name", "name",
+            "price", "price",
+            "description", "description",
+            "category", "category",
+            "availablequantity", "availableQuantity",
+            "quantity", "availableQuantity",
+            "status", "status",
+            "imageurl", "imageUrl");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private MarketPlaceRepository marketPlaceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private ProductService productService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Número de filas por lote JDBC.
+     */
+    @Value("${app.products.import.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Número máximo de errores de fila que se devuelven.
+     */
+    @Value("${app.products.import.max-errors:100}")
+    private int maxErrors;
+
+    public ProductImportService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Importa los productos del flujo y los asigna al vendedor indicado.
+     *
+     * Formato CSV: la primera línea es la cabecera con las columnas name y price
+     * (obligatorias) y opcionalmente description, category, availableQuantity,
+     * status e imageUrl; los campos pueden ir entre comillas dobles.
+     * Formato NDJSON: un objeto JSON por línea con los mismos nombres.
+     *
+     * @param input Cuerpo de la petición
+     * @param format "csv" o "ndjson"
+     * @param username Vendedor dueño de los productos
+     * @return Filas importadas, filas rechazadas y sus errores
+     * @throws IllegalArgumentException si el formato, el usuario o la cabecera no son válidos
+     * @throws IOException si falla la lectura del cuerpo
+     */
+    public ImportResult importProducts(InputStream input, String format, String username) throws IOException {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("Formato no soportado: " + format + " (use csv o ndjson)");
+        }
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado: " + username));
+        MarketPlace marketPlace = marketPlaceRepository.findByNombre(DEFAULT_MARKETPLACE).orElseGet(() -> {
+            MarketPlace newMarketPlace = new MarketPlace();
+            newMarketPlace.setNombre(DEFAULT_MARKETPLACE);
+            return marketPlaceRepository.save(newMarketPlace);
+        });
+
+        Run run = new Run(user, marketPlace);
+        for (Category category : categoryRepository.findAll()) {
+            run.categories.putIfAbsent(categoryKey(category.getName()), category);
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        if (csv) {
+            readCsv(reader, run);
+        } else {
+            readNdjson(reader, run);
+        }
+        flush(run);
+        log.info("Importación de {}: {} productos insertados, {} filas rechazadas", username, run.imported, run.failed);
+        return new ImportResult(run.imported, run.failed, run.errors, run.failed > run.errors.size());
+    }
+
+    private void readCsv(BufferedReader reader, Run run) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        String[] columns = new String[header.size()];
+        for (int i = 0; i < header.size(); i++) {
+            columns[i] = COLUMNS.get(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT).replace("_", "").replace(" ", ""));
+        }
+        List<String> known = new ArrayList<>();
+        for (String column : columns) {
+            if (column != null) {
+                known.add(column);
+            }
+        }
+        if (!known.contains("name") || !known.contains("price")) {
+            throw new IllegalArgumentException("La cabecera CSV debe incluir las columnas name y price");
+        }
+        while (true) {
+            long line = csv.line();
+            List<String> record;
+            try {
+                record = csv.next();
+            } catch (IllegalArgumentException e) {
+                run.error(line, e.getMessage());
+                return;
+            }
+            if (record == null) {
+                return;
+            }
+            if (!(record.size() == 1 && record.get(0).isBlank())) {
+                Map<String, String> fields = new HashMap<>();
+                for (int i = 0; i < columns.length && i < record.size(); i++) {
+                    if (columns[i] != null) {
+                        fields.put(columns[i], record.get(i));
+                    }
+                }
+                accept(line, fields, run);
+            }
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, Run run) throws IOException {
+        String text;
+        long line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(text);
+            } catch (JsonProcessingException e) {
+                run.error(line, "JSON inválido: " + e.getOriginalMessage());
+                continue;
+            }
+            if (!node.isObject()) {
+                run.error(line, "Se esperaba un objeto JSON");
+                continue;
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (String column : COLUMNS.values()) {
+                JsonNode value = node.get(column);
+                if (value != null && !value.isNull()) {
+                    if ("category".equals(column) && value.isObject()) {
+                        value = value.get("name");
+                    }
+                    if (value != null && value.isValueNode()) {
+                        fields.put(column, value.asText());
+                    }
+                }
+            }
+            accept(line, fields, run);
+        }
+    }
+
+    /**
+     * Valida una fila y la agrega al lote en curso; guarda el lote al llenarse.
+     */
+    private void accept(long line, Map<String, String> fields, Run run) {
+        Product product;
+        try {
+            product = toProduct(fields, run);
+        } catch (IllegalArgumentException e) {
+            run.error(line, e.getMessage());
+            return;
+        }
+        run.lines.add(line);
+        run.batch.add(product);
+        if (run.batch.size() >= batchSize) {
+            flush(run);
+        }
+    }
+
+    private Product toProduct(Map<String, String> fields, Run run) {
+        String name = trimToNull(fields.get("name"));
+        if (name == null) {
+            throw new IllegalArgumentException("El nombre es obligatorio");
+        }
+        String priceText = trimToNull(fields.get("price"));
+        if (priceText == null) {
+            throw new IllegalArgumentException("El precio es obligatorio");
+        }
+        BigDecimal price;
+        try {
+            price = new BigDecimal(priceText);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Precio inválido: " + priceText);
+        }
+        if (price.signum() < 0) {
+            throw new IllegalArgumentException("El precio no puede ser negativo");
+        }
+        int quantity = 1;
+        String quantityText = trimToNull(fields.get("availableQuantity"));
+        if (quantityText != null) {
+            try {
+                quantity = Integer.parseInt(quantityText);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cantidad inválida: " + quantityText);
+            }
+            if (quantity < 0) {
+                throw new IllegalArgumentException("La cantidad no puede ser negativa");
+            }
+        }
+        ProductStatus status = ProductStatus.ACTIVE;
+        String statusText = trimToNull(fields.get("status"));
+        if (statusText != null) {
+            try {
+                status = ProductStatus.valueOf(statusText.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Estado inválido: " + statusText);
+            }
+        }
+        String categoryName = trimToNull(fields.get("category"));
+
+        Product product = new Product();
+        product.setId(UUID.randomUUID());
+        product.setName(name);
+        product.setDescription(trimToNull(fields.get("description")));
+        product.setImageUrl(trimToNull(fields.get("imageUrl")));
+        product.setPrice(price);
+        product.setAvailableQuantity(quantity);
+        product.setStatus(status);
+        product.setCategory(category(categoryName == null ? DEFAULT_CATEGORY : categoryName, run));
+        product.setUser(run.user);
+        product.setMarketPlace(run.marketPlace);
+        return product;
+    }
+
+    /**
+     * Busca la categoría en la caché de la importación o la crea una sola vez.
+     */
+    private Category category(String name, Run run) {
+        return run.categories.computeIfAbsent(categoryKey(name), key -> {
+            Category category = new Category();
+            category.setName(name);
+            category.setDescription(DEFAULT_CATEGORY.equals(name)
+                    ? "Categoría por defecto para productos sin categoría específica"
+                    : "Categoría creada automáticamente");
+            Category saved = categoryRepository.save(category);
+            catalogVersions.categoriesChanged();
+            return saved;
+        });
+    }
+
+    /**
+     * Inserta el lote en curso. Si el lote falla, se reintenta fila a fila
+     * para aislar las filas inválidas y guardar el resto.
+     */
+    private void flush(Run run) {
+        if (run.batch.isEmpty()) {
+            return;
+        }
+        List<Product> batch = run.batch;
+        List<Product> inserted;
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), ProductImportService::bind));
+            inserted = batch;
+        } catch (DataAccessException e) {
+            log.warn("Falló el lote de importación de {} filas, se reintenta fila a fila: {}",
+                    batch.size(), e.getMostSpecificCause().getMessage());
+            inserted = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                Product product = batch.get(i);
+                try {
+                    jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, product));
+                    inserted.add(product);
+                } catch (DataAccessException rowError) {
+                    run.error(run.lines.get(i), rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        run.imported += inserted.size();
+        if (!inserted.isEmpty()) {
+            productService.refreshProducts(inserted, Map.of());
+        }
+        run.batch = new ArrayList<>(batchSize);
+        run.lines.clear();
+    }
+
+    private static void bind(PreparedStatement ps, Product product) throws SQLException {
+        ps.setBytes(1, UuidBinary.toBytes(product.getId()));
+        ps.setString(2, product.getName());
+        ps.setString(3, product.getDescription());
+        ps.setString(4, product.getImageUrl());
+        ps.setBigDecimal(5, product.getPrice());
+        ps.setInt(6, product.getAvailableQuantity());
+        ps.setLong(7, product.getCategory().getId());
+        ps.setString(8, product.getStatus().name());
+        if (product.getUser() != null) {
+            ps.setBytes(9, UuidBinary.toBytes(product.getUser().getId()));
+        } else {
+            ps.setNull(9, Types.BINARY);
+        }
+        ps.setLong(10, product.getMarketPlace().getId());
+    }
+
+    private static String categoryKey(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    /**
+     * Estado de una importación en curso.
+     */
+    private final class Run {
+        final User user;
+        final MarketPlace marketPlace;
+        final Map<String, Category> categories = new HashMap<>();
+        List<Product> batch = new ArrayList<>();
+        final List<Long> lines = new ArrayList<>();
+        final List<ImportResult.RowError> errors = new ArrayList<>();
+        int imported;
+        int failed;
+
+        Run(User user, MarketPlace marketPlace) {
+            this.user = user;
+            this.marketPlace = marketPlace;
+        }
+
+        void error(long line, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportResult.RowError(line, message));
+            }
+        }
+    }
+
+    /**
+     * Lector mínimo de CSV (RFC 4180): separador coma, comillas dobles y
+     * saltos de línea dentro de campos entre comillas.
+     */
+    static final class CsvReader {
+        private final Reader reader;
+        private long line = 1;
+        private int pending = -2;
+
+        CsvReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Línea en la que empieza el siguiente registro.
+         */
+        long line() {
+            return line;
+        }
+
+        List<String> next() throws IOException {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> record = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IllegalArgumentException("Comillas sin cerrar; se detiene la lectura");
+                    }
+                    if (c == '"') {
+                        int following = read();
+                        if (following == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = following;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    record.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    record.add(field.toString());
+                    return record;
+                } else if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        pending = following;
+                    }
+                    line++;
+                    record.add(field.toString());
+                    return record;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (pending != -2) {
+                int c = pending;
+                pending = -2;
+                return c;
+            }
+            return reader.read();
+        }
+    }
+}
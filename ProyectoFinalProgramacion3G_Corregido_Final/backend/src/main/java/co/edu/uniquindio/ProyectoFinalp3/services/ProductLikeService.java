@@ -1,39 +1,552 @@
 /**
  * Servicio de reacciones a productos.
- * Administra creación y conteo de "me gusta".
+ * Administra creación, retiro y conteo de "me gusta".
  */
 package co.edu.uniquindio.ProyectoFinalp3.services;
 
-import co.edu.uniquindio.ProyectoFinalp3.models.Product;
-import co.edu.uniquindio.ProyectoFinalp3.models.ProductLike;
-import co.edu.uniquindio.ProyectoFinalp3.models.User;
+import co.edu.uniquindio.ProyectoFinalp3.exceptions.ProductoNoExistenteException;
 import co.edu.uniquindio.ProyectoFinalp3.repository.ProductLikeRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.ProductRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.UserRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.UuidBinary;
+import co.edu.uniquindio.ProyectoFinalp3.catalog.TrendingTracker;
+import co.edu.uniquindio.ProyectoFinalp3.search.ProductSearchIndex;
+import co.edu.uniquindio.ProyectoFinalp3.search.SuggestionIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * "Me gusta" con escritura diferida.
+ *
+ * Dar o quitar un like solo cambia memoria: se anota el estado deseado del par
+ * (producto, usuario) y se ajusta el contador del producto, un LongAdder como
+ * en las vistas. Un hilo propio guarda los cambios por lotes; los dobles clics
+ * se cancelan en memoria antes de llegar a la base de datos.
+ *
+ * La tabla tiene índice único (product_id, user_id) y el INSERT ignora los
+ * duplicados (INSERT IGNORE en MySQL, ON CONFLICT DO NOTHING en PostgreSQL),
+ * así que reintentar un lote no crea likes repetidos. Al arrancar se revisa que
+ * el índice exista; si no se puede crear se usa un INSERT con NOT EXISTS.
+ *
+ * La base de datos solo se lee la primera vez que se toca un par o un producto;
+ * después el estado y el conteo salen de memoria. Los pares ya guardados se
+ * olvidan al crecer demasiado la memoria, y se vuelven a leer si se tocan.
+ *
+ * Antes de anotar un cambio se comprueba que el producto exista (en el índice
+ * de búsqueda, o en la base si no está indexado) y, la primera vez que se toca
+ * el par, que exista el usuario: el guardado diferido no puede rechazar nada.
+ */
 @Service
 public class ProductLikeService {
 
+    private static final Logger log = LoggerFactory.getLogger(ProductLikeService.class);
+
+    private static final String INSERT_MYSQL_SQL =
+            "INSERT IGNORE INTO product_likes (id, product_id, user_id) VALUES (?, ?, ?)";
+
+    private static final String INSERT_POSTGRES_SQL =
+            "INSERT INTO product_likes (id, product_id, user_id) VALUES (?, ?, ?) "
+                    + "ON CONFLICT (product_id, user_id) DO NOTHING";
+
+    private static final String INSERT_GENERIC_SQL =
+            "INSERT INTO product_likes (id, product_id, user_id) SELECT ?, ?, ? FROM (SELECT 1 AS one) t "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM product_likes WHERE product_id = ? AND user_id = ?)";
+
+    private static final String DUPLICATE_PAIRS_SQL =
+            "SELECT product_id, user_id FROM product_likes GROUP BY product_id, user_id HAVING COUNT(*) > 1";
+
+    private static final String CREATE_UNIQUE_INDEX_SQL =
+            "CREATE UNIQUE INDEX uk_product_likes_product_user ON product_likes (product_id, user_id)";
+
+    private static final String DELETE_SQL =
+            "DELETE FROM product_likes WHERE product_id = ? AND user_id = ?";
+
     @Autowired
     private ProductLikeRepository productLikeRepository;
 
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Autowired
+    private TrendingTracker trendingTracker;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Intervalo entre guardados de likes pendientes.
+     */
+    @Value("${app.products.likes.flush-ms:1000}")
+    private long flushMs;
+
+    /**
+     * Número de sentencias por lote JDBC.
+     */
+    @Value("${app.products.likes.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Pares (producto, usuario) recordados antes de olvidar los ya guardados.
+     */
+    @Value("${app.products.likes.max-tracked:200000}")
+    private int maxTracked;
+
+    /**
+     * Estado conocido de cada par: true si el usuario dio like.
+     */
+    private final Map<LikeKey, Boolean> states = new ConcurrentHashMap<>();
+
+    /**
+     * Último estado aún no guardado de cada par.
+     */
+    private final Map<LikeKey, Boolean> pending = new ConcurrentHashMap<>();
+
+    private final Map<UUID, Counter> counters = new ConcurrentHashMap<>();
+
+    // Las peticiones cambian estado y pendientes bajo el candado de lectura; olvidar pares usa el de escritura
+    private final ReadWriteLock trackingLock = new ReentrantReadWriteLock();
+
+    private String insertSql = INSERT_GENERIC_SQL;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        try {
+            String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            if (database != null && (database.contains("MySQL") || database.contains("MariaDB"))) {
+                insertSql = INSERT_MYSQL_SQL;
+            } else if (database != null && database.contains("PostgreSQL")) {
+                insertSql = INSERT_POSTGRES_SQL;
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudo detectar la base de datos; se usa el INSERT genérico de likes", e);
+        }
+        if (insertSql != INSERT_GENERIC_SQL && !ensureUniqueIndex()) {
+            // Sin índice único, INSERT IGNORE duplicaría likes y ON CONFLICT fallaría
+            insertSql = INSERT_GENERIC_SQL;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-likes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron guardar los likes de productos", e);
+            }
+        }, flushMs, flushMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Revisa que exista el índice único (product_id, user_id). Las bases creadas
+     * con ddl-auto=update antes de agregarlo pueden tener likes repetidos, y
+     * entonces Hibernate no logra crearlo: se borran los repetidos, dejando uno
+     * por par, y se crea el índice.
+     *
+     * @return true si el índice existe al terminar
+     */
+    private boolean ensureUniqueIndex() {
+        try {
+            if (hasUniqueIndex()) {
+                return true;
+            }
+            List<Object[]> pairs = jdbcTemplate.query(DUPLICATE_PAIRS_SQL,
+                    (rs, rowNum) -> new Object[] { rs.getBytes(1), rs.getBytes(2) });
+            int deleted = 0;
+            for (Object[] pair : pairs) {
+                List<byte[]> ids = jdbcTemplate.query("SELECT id FROM product_likes WHERE product_id = ? AND user_id = ?",
+                        (rs, rowNum) -> rs.getBytes(1), pair);
+                List<Object[]> extra = new ArrayList<>();
+                for (byte[] id : ids.subList(1, ids.size())) {
+                    extra.add(new Object[] { id });
+                }
+                jdbcTemplate.batchUpdate("DELETE FROM product_likes WHERE id = ?", extra);
+                deleted += extra.size();
+            }
+            if (deleted > 0) {
+                log.info("Se borraron {} likes repetidos de {} pares producto-usuario", deleted, pairs.size());
+            }
+            jdbcTemplate.execute(CREATE_UNIQUE_INDEX_SQL);
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("No se pudo crear el índice único de likes; se usa el INSERT genérico", e);
+            return false;
+        }
+    }
+
+    private boolean hasUniqueIndex() {
+        Boolean found = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // El nombre de la tabla se guarda en minúsculas o mayúsculas según la base de datos
+            for (String table : List.of("product_likes", "PRODUCT_LIKES")) {
+                Map<String, Set<String>> columns = new HashMap<>();
+                try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), table, true, true)) {
+                    while (rs.next()) {
+                        if (rs.getString("INDEX_NAME") != null && rs.getString("COLUMN_NAME") != null) {
+                            columns.computeIfAbsent(rs.getString("INDEX_NAME"), name -> new HashSet<>())
+                                    .add(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+                        }
+                    }
+                }
+                if (columns.containsValue(Set.of("product_id", "user_id"))) {
+                    return true;
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(found);
+    }
+
+    /**
+     * Guarda los likes pendientes antes de apagar la aplicación.
+     */
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron guardar los likes pendientes al apagar", e);
+        }
+    }
+
     // Agregar un "like" a un producto. Si ya existe, no lo agrega de nuevo.
-    public boolean addLikeToProduct(UUID productId, UUID userId) {
-        Optional<ProductLike> existingLike = productLikeRepository.findByProductIdAndUserId(productId, userId);
-        if (existingLike.isPresent()) {
-            return false; // El usuario ya ha dado "like"
-        } else {
-            ProductLike like = new ProductLike(new Product(productId), new User(userId));
-            productLikeRepository.save(like);
-            return true; // Like agregado exitosamente
+    public boolean addLikeToProduct(UUID productId, UUID userId) throws ProductoNoExistenteException {
+        return change(productId, userId, true);
+    }
+
+    /**
+     * Quita el like del usuario.
+     *
+     * @return true si había like y se quitó
+     * @throws ProductoNoExistenteException si el producto no existe
+     * @throws IllegalArgumentException si el usuario no existe
+     */
+    public boolean removeLikeFromProduct(UUID productId, UUID userId) throws ProductoNoExistenteException {
+        return change(productId, userId, false);
+    }
+
+    /**
+     * Da like si no lo había y lo quita si ya estaba.
+     *
+     * @return true si al final el usuario tiene like en el producto
+     * @throws ProductoNoExistenteException si el producto no existe
+     * @throws IllegalArgumentException si el usuario no existe
+     */
+    public boolean toggleLike(UUID productId, UUID userId) throws ProductoNoExistenteException {
+        while (true) {
+            boolean liked = isLiked(productId, userId);
+            if (change(productId, userId, !liked)) {
+                return !liked;
+            }
+            // Otra petición cambió el par entre la lectura y el cambio; se reintenta con el estado nuevo
         }
     }
 
+    /**
+     * Indica si el usuario tiene like en el producto, contando lo pendiente.
+     */
+    public boolean isLiked(UUID productId, UUID userId) {
+        Boolean known = states.get(new LikeKey(productId, userId));
+        if (known != null) {
+            return known;
+        }
+        return productLikeRepository.existsByProductIdAndUserId(productId, userId);
+    }
+
     // Contar el número de "likes" de un producto específico
     public long getLikesCountByProduct(UUID productId) {
+        Counter counter = counters.get(productId);
+        if (counter != null) {
+            return counter.count();
+        }
         return productLikeRepository.countByProductId(productId);
     }
+
+    /**
+     * Conteo de likes de varios productos en una consulta, contando lo pendiente.
+     * Los productos sin likes no aparecen en el mapa.
+     */
+    public Map<UUID, Long> countLikes(Collection<UUID> productIds) {
+        Map<UUID, Long> result = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : new LinkedHashSet<>(productIds)) {
+            Counter counter = counters.get(id);
+            if (counter == null) {
+                missing.add(id);
+            } else if (counter.count() > 0) {
+                result.put(id, counter.count());
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Object[] row : productLikeRepository.countGroupedByProductIdIn(missing)) {
+                result.put((UUID) row[0], (Long) row[1]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Deja de contar un producto eliminado y descarta sus likes pendientes.
+     */
+    public void forget(UUID productId) {
+        counters.remove(productId);
+        pending.keySet().removeIf(key -> key.productId.equals(productId));
+        states.keySet().removeIf(key -> key.productId.equals(productId));
+    }
+
+    /**
+     * Lleva el par al estado pedido.
+     *
+     * @return true si el estado cambió
+     */
+    private boolean change(UUID productId, UUID userId, boolean like) throws ProductoNoExistenteException {
+        if (!searchIndex.contains(productId) && !productRepository.existsById(productId)) {
+            throw new ProductoNoExistenteException("Producto no encontrado: " + productId);
+        }
+        LikeKey key = new LikeKey(productId, userId);
+        // El conteo base se lee antes de anotar el cambio, para no contarlo dos veces si se guarda enseguida
+        Counter counter = counterFor(productId);
+        boolean[] changed = new boolean[1];
+        trackingLock.readLock().lock();
+        try {
+            if (!states.containsKey(key)) {
+                if (!userRepository.existsById(userId)) {
+                    throw new IllegalArgumentException("Usuario no encontrado: " + userId);
+                }
+                boolean saved = productLikeRepository.existsByProductIdAndUserId(productId, userId);
+                states.putIfAbsent(key, saved);
+            }
+            states.compute(key, (k, current) -> {
+                if (current != null && current == like) {
+                    return current;
+                }
+                changed[0] = true;
+                pending.put(k, like);
+                return like;
+            });
+        } finally {
+            trackingLock.readLock().unlock();
+        }
+        if (!changed[0]) {
+            return false;
+        }
+        if (like) {
+            counter.delta.increment();
+            suggestionIndex.addPopularity(productId, 1); // Sube el peso del producto en el autocompletado
+            trendingTracker.recordLike(productId);
+        } else {
+            counter.delta.decrement();
+            suggestionIndex.addPopularity(productId, -1);
+        }
+        return true;
+    }
+
+    private Counter counterFor(UUID productId) {
+        Counter counter = counters.get(productId);
+        if (counter == null) {
+            long saved = productLikeRepository.countByProductId(productId);
+            counter = counters.computeIfAbsent(productId, id -> new Counter(saved));
+        }
+        return counter;
+    }
+
+    /**
+     * Guarda en lotes los likes y retiros pendientes.
+     */
+    synchronized void flush() {
+        List<LikeKey> inserts = new ArrayList<>();
+        List<LikeKey> deletes = new ArrayList<>();
+        for (Map.Entry<LikeKey, Boolean> entry : pending.entrySet()) {
+            // Solo se toma el valor leído; si cambió mientras tanto queda para el siguiente ciclo
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                (entry.getValue() ? inserts : deletes).add(entry.getKey());
+            }
+        }
+        for (int from = 0; from < deletes.size(); from += batchSize) {
+            write(DELETE_SQL, deletes.subList(from, Math.min(deletes.size(), from + batchSize)), false);
+        }
+        for (int from = 0; from < inserts.size(); from += batchSize) {
+            write(insertSql, inserts.subList(from, Math.min(inserts.size(), from + batchSize)), true);
+        }
+        if (states.size() > maxTracked) {
+            forgetSaved();
+        }
+    }
+
+    private void write(String sql, List<LikeKey> keys, boolean insert) {
+        List<Object[]> batch = new ArrayList<>(keys.size());
+        for (LikeKey key : keys) {
+            batch.add(insert ? insertArgs(key) : deleteArgs(key));
+        }
+        try {
+            jdbcTemplate.batchUpdate(sql, batch);
+        } catch (DataAccessException e) {
+            // Un producto o usuario eliminado hace fallar el lote completo; se guarda fila por fila
+            for (int i = 0; i < keys.size(); i++) {
+                LikeKey key = keys.get(i);
+                try {
+                    jdbcTemplate.update(sql, batch.get(i));
+                } catch (DataIntegrityViolationException rowError) {
+                    log.warn("Se descarta el like del usuario {} en el producto {}: {}",
+                            key.userId, key.productId, rowError.getMessage());
+                    dropState(key, insert);
+                } catch (DataAccessException rowError) {
+                    // Falla pasajera (conexión, bloqueo): el resto del lote vuelve a pendientes para el siguiente ciclo
+                    log.warn("No se pudieron guardar {} likes; se reintentan en el siguiente ciclo: {}",
+                            keys.size() - i, rowError.getMessage());
+                    requeue(keys.subList(i, keys.size()), insert);
+                    return;
+                }
+            }
+        }
+    }
+
+    private Object[] insertArgs(LikeKey key) {
+        byte[] product = UuidBinary.toBytes(key.productId);
+        byte[] user = UuidBinary.toBytes(key.userId);
+        if (insertSql == INSERT_GENERIC_SQL) {
+            return new Object[] { UuidBinary.toBytes(UUID.randomUUID()), product, user, product, user };
+        }
+        return new Object[] { UuidBinary.toBytes(UUID.randomUUID()), product, user };
+    }
+
+    private Object[] deleteArgs(LikeKey key) {
+        return new Object[] { UuidBinary.toBytes(key.productId), UuidBinary.toBytes(key.userId) };
+    }
+
+    /**
+     * Devuelve a pendientes los pares que no se pudieron guardar, salvo los que
+     * cambiaron mientras tanto: su valor nuevo ya está pendiente.
+     */
+    private void requeue(List<LikeKey> keys, boolean insert) {
+        trackingLock.readLock().lock();
+        try {
+            for (LikeKey key : keys) {
+                pending.putIfAbsent(key, insert);
+            }
+        } finally {
+            trackingLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Olvida un par que no se pudo guardar y deshace su efecto en el conteo.
+     */
+    private void dropState(LikeKey key, boolean insert) {
+        trackingLock.writeLock().lock();
+        try {
+            if (!pending.containsKey(key)) {
+                states.remove(key);
+                Counter counter = counters.get(key.productId);
+                if (counter != null) {
+                    if (insert) {
+                        counter.delta.decrement();
+                    } else {
+                        counter.delta.increment();
+                    }
+                }
+            }
+        } finally {
+            trackingLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Olvida los pares ya guardados; los que siguen pendientes se conservan.
+     */
+    private void forgetSaved() {
+        trackingLock.writeLock().lock();
+        try {
+            states.keySet().removeIf(key -> !pending.containsKey(key));
+        } finally {
+            trackingLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Par producto-usuario.
+     */
+    private static final class LikeKey {
+        final UUID productId;
+        final UUID userId;
+
+        LikeKey(UUID productId, UUID userId) {
+            this.productId = productId;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof LikeKey)) {
+                return false;
+            }
+            LikeKey key = (LikeKey) other;
+            return productId.equals(key.productId) && userId.equals(key.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(productId, userId);
+        }
+    }
+
+    /**
+     * Likes guardados al empezar a contar el producto más los cambios desde entonces.
+     */
+    private static final class Counter {
+        final long saved;
+        final LongAdder delta = new LongAdder();
+
+        Counter(long saved) {
+            this.saved = saved;
+        }
+
+        long count() {
+            return saved + delta.sum();
+        }
+    }
 }
@@ -1,22 +1,62 @@
 package co.edu.uniquindio.ProyectoFinalp3.services;
 
+import co.edu.uniquindio.ProyectoFinalp3.catalog.CatalogVersions;
+import co.edu.uniquindio.ProyectoFinalp3.dto.RatingSummary;
 import co.edu.uniquindio.ProyectoFinalp3.models.Product;
 import co.edu.uniquindio.ProyectoFinalp3.models.ProductRating;
 import co.edu.uniquindio.ProyectoFinalp3.models.User;
 import co.edu.uniquindio.ProyectoFinalp3.repository.ProductRatingRepository;
 import co.edu.uniquindio.ProyectoFinalp3.repository.ProductRepository;
 import co.edu.uniquindio.ProyectoFinalp3.repository.UserRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.UuidBinary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Calificaciones de productos.
+ *
+ * La suma, el conteo y el histograma de estrellas viven en la fila del producto
+ * y se actualizan con un UPDATE de incremento en la misma transacción que guarda
+ * la calificación (alta: +1 en su estrella; cambio: -1 en la vieja y +1 en la
+ * nueva). Así el resumen es una lectura por clave y no un AVG/COUNT por petición.
+ *
+ * La fila del producto se bloquea antes de leer la calificación previa: dos
+ * cambios simultáneos del mismo usuario se aplican uno tras otro y el segundo
+ * ve las estrellas que dejó el primero. El UPDATE del delta ya bloqueaba esa
+ * fila hasta el commit, así que el bloqueo no agrega espera entre productos.
+ */
 @Service
 public class ProductRatingService {
 
+    private static final Logger log = LoggerFactory.getLogger(ProductRatingService.class);
+
+    private static final String DELTA_SQL = "UPDATE products SET rating_sum = rating_sum + ?, rating_count = rating_count + ?, "
+            + "rating_1 = rating_1 + ?, rating_2 = rating_2 + ?, rating_3 = rating_3 + ?, rating_4 = rating_4 + ?, "
+            + "rating_5 = rating_5 + ? WHERE id = ?";
+
+    private static final String RECONCILE_SQL = "UPDATE products SET "
+            + "rating_sum = COALESCE((SELECT SUM(r.stars) FROM product_ratings r WHERE r.product_id = products.id), 0), "
+            + "rating_count = (SELECT COUNT(*) FROM product_ratings r WHERE r.product_id = products.id), "
+            + "rating_1 = (SELECT COUNT(*) FROM product_ratings r WHERE r.product_id = products.id AND r.stars = 1), "
+            + "rating_2 = (SELECT COUNT(*) FROM product_ratings r WHERE r.product_id = products.id AND r.stars = 2), "
+            + "rating_3 = (SELECT COUNT(*) FROM product_ratings r WHERE r.product_id = products.id AND r.stars = 3), "
+            + "rating_4 = (SELECT COUNT(*) FROM product_ratings r WHERE r.product_id = products.id AND r.stars = 4), "
+            + "rating_5 = (SELECT COUNT(*) FROM product_ratings r WHERE r.product_id = products.id AND r.stars = 5)";
+
     @Autowired
     private ProductRatingRepository ratingRepository;
 
@@ -26,20 +66,29 @@ public class ProductRatingService {
     @Autowired
     private UserRepository userRepository;
 
-    public Map<String, Object> getSummary(UUID productId) {
-        Double avg = ratingRepository.getAverageByProductId(productId);
-        Long count = ratingRepository.getCountByProductId(productId);
-        Map<String, Object> res = new HashMap<>();
-        res.put("average", avg == null ? 0.0 : avg);
-        res.put("count", count == null ? 0L : count);
-        return res;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    /**
+     * Recalcula los agregados al iniciar si no cuadran con product_ratings
+     * (columnas recién creadas o calificaciones insertadas por JDBC).
+     */
+    @Value("${app.products.ratings.reconcile-on-startup:true}")
+    private boolean reconcileOnStartup;
+
+    public RatingSummary getSummary(UUID productId) {
+        return productRepository.findRatingSummary(productId).orElseGet(() -> RatingSummary.empty(productId));
     }
 
-    public Map<String, Object> submit(UUID productId, UUID userId, int stars) {
+    @Transactional
+    public RatingSummary submit(UUID productId, UUID userId, int stars) {
         if (stars < 1 || stars > 5) {
             throw new IllegalArgumentException("Las estrellas deben estar entre 1 y 5");
         }
-        Optional<Product> productOpt = productRepository.findById(productId);
+        Optional<Product> productOpt = productRepository.findByIdForUpdate(productId);
         if (productOpt.isEmpty()) {
             throw new IllegalArgumentException("Producto no encontrado");
         }
@@ -54,16 +103,20 @@ public class ProductRatingService {
             Optional<ProductRating> existing = ratingRepository.findByProduct_IdAndUser_Id(productId, user.getId());
             if (existing.isPresent()) {
                 ProductRating r = existing.get();
+                int previous = r.getStars();
                 r.setStars(stars);
                 ratingRepository.save(r);
+                applyDelta(productId, previous, stars);
             } else {
                 ProductRating rating = new ProductRating(productOpt.get(), user, stars);
                 ratingRepository.save(rating);
+                applyDelta(productId, 0, stars);
             }
         } else {
             // Calificación anónima (sin usuario) siempre crea nueva entrada
             ProductRating rating = new ProductRating(productOpt.get(), null, stars);
             ratingRepository.save(rating);
+            applyDelta(productId, 0, stars);
         }
         return getSummary(productId);
     }
@@ -71,16 +124,18 @@ public class ProductRatingService {
     /**
      * Upsert por username: busca al usuario por nombre y crea/actualiza su calificación.
      */
-    public Map<String, Object> submitByUsername(UUID productId, String username, int stars) {
+    @Transactional
+    public RatingSummary submitByUsername(UUID productId, String username, int stars) {
         if (stars < 1 || stars > 5) {
             throw new IllegalArgumentException("Las estrellas deben estar entre 1 y 5");
         }
-        Product product = productRepository.findById(productId)
+        Product product = productRepository.findByIdForUpdate(productId)
                 .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado"));
         if (username == null || username.isBlank()) {
             // si no hay username, tratamos como calificación anónima
             ProductRating rating = new ProductRating(product, null, stars);
             ratingRepository.save(rating);
+            applyDelta(productId, 0, stars);
             return getSummary(productId);
         }
         User user = userRepository.findByUsername(username)
@@ -89,11 +144,14 @@ public class ProductRatingService {
         Optional<ProductRating> existing = ratingRepository.findByProduct_IdAndUser_Username(productId, username);
         if (existing.isPresent()) {
             ProductRating r = existing.get();
+            int previous = r.getStars();
             r.setStars(stars);
             ratingRepository.save(r);
+            applyDelta(productId, previous, stars);
         } else {
             ProductRating rating = new ProductRating(product, user, stars);
             ratingRepository.save(rating);
+            applyDelta(productId, 0, stars);
         }
         return getSummary(productId);
     }
@@ -111,4 +169,58 @@ public class ProductRatingService {
         res.put("stars", existing.map(ProductRating::getStars).orElse(0));
         return res;
     }
+
+    /**
+     * Recalcula todos los agregados desde product_ratings si el conteo o la suma
+     * de estrellas guardados no coinciden con las calificaciones.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileAggregates() {
+        if (!reconcileOnStartup) {
+            return;
+        }
+        Map<String, Object> ratings = jdbcTemplate.queryForMap(
+                "SELECT COUNT(*) AS total, COALESCE(SUM(stars), 0) AS stars FROM product_ratings");
+        Map<String, Object> stored = jdbcTemplate.queryForMap(
+                "SELECT COALESCE(SUM(rating_count), 0) AS total, COALESCE(SUM(rating_sum), 0) AS stars FROM products");
+        if (sameNumber(ratings.get("total"), stored.get("total")) && sameNumber(ratings.get("stars"), stored.get("stars"))) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int updated = jdbcTemplate.update(RECONCILE_SQL);
+        log.info("Agregados de calificaciones recalculados para {} productos en {} ms", updated, System.currentTimeMillis() - start);
+    }
+
+    // Compara conteos que el driver puede devolver como Long, BigInteger o BigDecimal
+    private static boolean sameNumber(Object a, Object b) {
+        return a instanceof Number x && b instanceof Number y && x.longValue() == y.longValue();
+    }
+
+    /**
+     * Aplica el cambio de una calificación a los agregados del producto.
+     *
+     * @param previous Estrellas anteriores (0 si la calificación es nueva)
+     * @param stars Estrellas nuevas
+     */
+    private void applyDelta(UUID productId, int previous, int stars) {
+        if (previous == stars) {
+            return;
+        }
+        long[] histogram = new long[6];
+        histogram[previous]--;
+        histogram[stars]++;
+        jdbcTemplate.update(DELTA_SQL, stars - previous, previous == 0 ? 1 : 0,
+                histogram[1], histogram[2], histogram[3], histogram[4], histogram[5], UuidBinary.toBytes(productId));
+        // El producto se serializa con su promedio: su ETag cambia cuando la calificación se confirma
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    catalogVersions.countersChanged(productId);
+                }
+            });
+        } else {
+            catalogVersions.countersChanged(productId);
+        }
+    }
 }
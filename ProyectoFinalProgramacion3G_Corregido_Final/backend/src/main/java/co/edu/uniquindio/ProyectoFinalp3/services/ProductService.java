@@ -4,17 +4,64 @@
  */
 package co.edu.uniquindio.ProyectoFinalp3.services;
 
+import co.edu.uniquindio.ProyectoFinalp3.catalog.ActiveCatalogCache;
+import co.edu.uniquindio.ProyectoFinalp3.catalog.ProductChangeLog;
+import co.edu.uniquindio.ProyectoFinalp3.catalog.TrendingTracker;
+import co.edu.uniquindio.ProyectoFinalp3.catalog.CatalogSnapshot;
+import co.edu.uniquindio.ProyectoFinalp3.dto.BulkUpdateResult;
+import co.edu.uniquindio.ProyectoFinalp3.dto.CursorPage;
+import co.edu.uniquindio.ProyectoFinalp3.dto.FacetedSearchPage;
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductBatch;
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductBulkUpdate;
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductChanges;
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductEngagement;
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductPatch;
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductStockEvent;
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductSummary;
+import co.edu.uniquindio.ProyectoFinalp3.dto.RatingSummary;
+import co.edu.uniquindio.ProyectoFinalp3.dto.SearchPage;
 import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+import co.edu.uniquindio.ProyectoFinalp3.models.Category;
 import co.edu.uniquindio.ProyectoFinalp3.models.Product;
 import co.edu.uniquindio.ProyectoFinalp3.repository.UserRepository;
 import co.edu.uniquindio.ProyectoFinalp3.models.User;
+import co.edu.uniquindio.ProyectoFinalp3.repository.ProductLikeRepository;
 import co.edu.uniquindio.ProyectoFinalp3.repository.ProductRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.UuidBinary;
+import co.edu.uniquindio.ProyectoFinalp3.search.FacetFilter;
+import co.edu.uniquindio.ProyectoFinalp3.search.ProductDocument;
+import co.edu.uniquindio.ProyectoFinalp3.search.ProductSearchIndex;
+import co.edu.uniquindio.ProyectoFinalp3.search.Suggestion;
+import co.edu.uniquindio.ProyectoFinalp3.search.SuggestionIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.BiFunction;
 
 /**
  * Servicio para manejar todas las operaciones relacionadas con productos.
@@ -27,6 +74,8 @@ import java.util.UUID;
 @Service
 public class ProductService {
 
+    private static final Logger log = LoggerFactory.getLogger(ProductService.class);
+
     /**
      * Repositorio para acceder a los datos de productos en la base de datos.
      * Se inyecta automáticamente por Spring.
@@ -40,6 +89,138 @@ public class ProductService {
      */
     @Autowired
     private UserRepository userRepository;
+
+    /**
+     * Índice invertido en memoria usado por la búsqueda de productos.
+     */
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    /**
+     * Trie de autocompletado con nombres de productos activos y categorías.
+     */
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    /**
+     * Repositorio de likes, usado como medida de popularidad para sugerencias.
+     */
+    @Autowired
+    private ProductLikeRepository productLikeRepository;
+
+    /**
+     * Acceso JDBC para los UPDATE parciales de PATCH.
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Foto en memoria del catálogo activo, servida sin consultar la base de datos.
+     */
+    @Autowired
+    private ActiveCatalogCache activeCatalog;
+
+    /**
+     * Registro de cambios: asigna la versión de cada escritura (usada también en los ETag)
+     * y sirve la sincronización incremental.
+     */
+    @Autowired
+    private ProductChangeLog changeLog;
+
+    /**
+     * Streams SSE que reciben los cambios de stock, estado y precio.
+     */
+    @Autowired
+    private ProductStreamService productStream;
+
+    /**
+     * Contador de vistas; se limpia al eliminar un producto.
+     */
+    @Autowired
+    private ProductViewService productViewService;
+
+    /**
+     * Likes con escritura diferida; los conteos incluyen lo aún no guardado.
+     */
+    @Autowired
+    private ProductLikeService productLikeService;
+
+    /**
+     * Sketch de actividad reciente usado para las tendencias.
+     */
+    @Autowired
+    private TrendingTracker trendingTracker;
+
+    /**
+     * Si es false, el catálogo activo se consulta siempre en la base de datos.
+     */
+    @Value("${app.catalog.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    /**
+     * Cursor inicial: el menor UUID posible, anterior a cualquier ID real.
+     */
+    private static final UUID FIRST_CURSOR = new UUID(0L, 0L);
+
+    /**
+     * Tamaño de página usado cuando el cliente no envía límite.
+     */
+    @Value("${app.products.page.default-size:24}")
+    private int defaultPageSize;
+
+    /**
+     * Tamaño máximo de página permitido en los listados.
+     */
+    @Value("${app.products.page.max-size:100}")
+    private int maxPageSize;
+
+    /**
+     * Desplazamiento máximo permitido en la búsqueda por relevancia.
+     */
+    @Value("${app.search.max-offset:10000}")
+    private int maxSearchOffset;
+
+    /**
+     * Similitud mínima de trigramas para la búsqueda tolerante a errores.
+     */
+    @Value("${app.search.fuzzy.threshold:0.5}")
+    private double fuzzyThreshold;
+
+    /**
+     * Límites ascendentes de los rangos de precio de la búsqueda facetada.
+     */
+    @Value("${app.search.facets.price-bounds:50,100,250,500,1000}")
+    private BigDecimal[] priceBounds;
+
+    /**
+     * Número máximo de IDs aceptados en una consulta múltiple.
+     */
+    @Value("${app.products.batch.max-ids:500}")
+    private int maxBatchIds;
+
+    /**
+     * Número máximo de productos por actualización masiva.
+     */
+    @Value("${app.products.bulk.max-ids:5000}")
+    private int maxBulkIds;
+
+    /**
+     * Número de IDs por cada UPDATE ... WHERE id IN (...) de la actualización masiva.
+     */
+    @Value("${app.products.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    /**
+     * Tamaño de lote al leer productos para construir el índice.
+     */
+    private static final int INDEX_BATCH_SIZE = 1000;
+
+    /**
+     * Descuento de stock que solo aplica si alcanzan las unidades.
+     */
+    private static final String DECREMENT_STOCK_SQL =
+            "UPDATE products SET available_quantity = available_quantity - ?, version = version + 1 "
+                    + "WHERE id = ? AND available_quantity >= ?";
     
     /**
      * Crea un nuevo producto y lo asocia con un usuario específico.
@@ -55,7 +236,9 @@ public class ProductService {
                 .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado: " + username));
 
         product.setUser(user);  // Asociar el usuario al producto
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        refreshProduct(saved);
+        return saved;
     }
 
     /**
@@ -77,6 +260,87 @@ public class ProductService {
         return productRepository.findById(id);
     }
 
+    /**
+     * Carga varias entidades de producto con una sola consulta.
+     *
+     * @param ids IDs de los productos
+     * @return Productos encontrados (los IDs inexistentes se omiten)
+     */
+    public List<Product> getProductsByIds(List<UUID> ids) {
+        return ids.isEmpty() ? new ArrayList<>() : productRepository.findAllById(ids);
+    }
+
+    /**
+     * Consulta varios productos por ID con una sola consulta IN.
+     * Los IDs repetidos se consideran una vez y el resultado respeta el orden pedido.
+     *
+     * @param ids IDs solicitados
+     * @return Productos encontrados en orden y lista de IDs inexistentes
+     * @throws IllegalArgumentException si hay IDs nulos o se supera el máximo permitido
+     */
+    public ProductBatch getProductsBatch(List<UUID> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ProductBatch(new ArrayList<>(), new ArrayList<>());
+        }
+        if (ids.contains(null)) {
+            throw new IllegalArgumentException("La lista de IDs contiene valores nulos");
+        }
+        LinkedHashSet<UUID> unique = new LinkedHashSet<>(ids);
+        if (unique.size() > maxBatchIds) {
+            throw new IllegalArgumentException("Se pueden consultar como máximo " + maxBatchIds + " productos por petición");
+        }
+        Map<UUID, Product> byId = new HashMap<>();
+        for (Product product : productRepository.findAllWithRelationsByIdIn(unique)) {
+            byId.put(product.getId(), product);
+        }
+        List<Product> items = new ArrayList<>(byId.size());
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : unique) {
+            Product product = byId.get(id);
+            if (product != null) {
+                items.add(product);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new ProductBatch(items, missing);
+    }
+
+    /**
+     * Calificaciones y likes de varios productos para una grilla del catálogo.
+     * Usa dos consultas IN (agregados de calificación y likes agrupados) en
+     * lugar de dos peticiones por tarjeta.
+     *
+     * @param ids IDs de los productos visibles
+     * @return Datos en el orden pedido; los IDs inexistentes se omiten
+     * @throws IllegalArgumentException si hay IDs nulos o se supera el máximo permitido
+     */
+    public List<ProductEngagement> getEngagement(List<UUID> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (ids.contains(null)) {
+            throw new IllegalArgumentException("La lista de IDs contiene valores nulos");
+        }
+        LinkedHashSet<UUID> unique = new LinkedHashSet<>(ids);
+        if (unique.size() > maxBatchIds) {
+            throw new IllegalArgumentException("Se pueden consultar como máximo " + maxBatchIds + " productos por petición");
+        }
+        Map<UUID, RatingSummary> ratings = new HashMap<>();
+        for (RatingSummary summary : productRepository.findRatingSummariesByIdIn(unique)) {
+            ratings.put(summary.getProductId(), summary);
+        }
+        Map<UUID, Long> likes = productLikeService.countLikes(unique);
+        List<ProductEngagement> result = new ArrayList<>(ratings.size());
+        for (UUID id : unique) {
+            RatingSummary summary = ratings.get(id);
+            if (summary != null) {
+                result.add(new ProductEngagement(id, summary.getAverage(), summary.getCount(), likes.getOrDefault(id, 0L)));
+            }
+        }
+        return result;
+    }
+
     /**
      * Actualiza un producto existente con nueva información.
      * Verifica que el producto exista antes de realizar la actualización.
@@ -86,13 +350,237 @@ public class ProductService {
      * @return Product actualizado si existe, null si no se encuentra
      */
     public Product updateProduct(UUID id, Product updatedProduct) {
-        if (productRepository.existsById(id)) {
+        Optional<Product> current = productRepository.findById(id);
+        if (current.isPresent()) {
             updatedProduct.setId(id);
-            return productRepository.save(updatedProduct);
+            if (updatedProduct.getVersion() == null) {
+                // Sin versión del cliente se conserva el comportamiento de "gana el último"
+                updatedProduct.setVersion(current.get().getVersion());
+            }
+            Product saved = productRepository.save(updatedProduct);
+            refreshProduct(saved);
+            return saved;
         }
         return null;
     }
 
+    /**
+     * Aplica solo los campos enviados con un único UPDATE dirigido, sin cargar
+     * ni fusionar la entidad completa. Si el PATCH trae versión, el UPDATE la
+     * exige en el WHERE, así que dos ediciones concurrentes no se pisan.
+     *
+     * @param id UUID del producto
+     * @param patch Campos a cambiar (los nulos no se modifican)
+     * @param category Categoría ya resuelta, o null para no cambiarla
+     * @return Producto actualizado, o null si no existe
+     * @throws IllegalArgumentException si no hay cambios o algún valor es inválido
+     * @throws OptimisticLockingFailureException si el producto cambió desde la versión enviada
+     */
+    @Transactional
+    public Product patchProduct(UUID id, ProductPatch patch, Category category) {
+        List<String> columns = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (patch.getName() != null) {
+            if (patch.getName().isBlank()) {
+                throw new IllegalArgumentException("El nombre no puede estar vacío");
+            }
+            columns.add("name = ?");
+            args.add(patch.getName().trim());
+        }
+        if (patch.getDescription() != null) {
+            columns.add("description = ?");
+            args.add(patch.getDescription());
+        }
+        if (patch.getImageUrl() != null) {
+            columns.add("image_url = ?");
+            args.add(patch.getImageUrl());
+        }
+        if (patch.getPrice() != null) {
+            if (patch.getPrice().signum() < 0) {
+                throw new IllegalArgumentException("El precio no puede ser negativo");
+            }
+            columns.add("price = ?");
+            args.add(patch.getPrice());
+        }
+        if (patch.getAvailableQuantity() != null) {
+            if (patch.getAvailableQuantity() < 0) {
+                throw new IllegalArgumentException("La cantidad no puede ser negativa");
+            }
+            columns.add("available_quantity = ?");
+            args.add(patch.getAvailableQuantity());
+        }
+        if (patch.getStatus() != null) {
+            columns.add("status = ?");
+            args.add(patch.getStatus().name());
+        }
+        if (category != null) {
+            columns.add("category_id = ?");
+            args.add(category.getId());
+        }
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("No se indicó ningún campo a modificar");
+        }
+        columns.add("version = version + 1");
+
+        String sql = "UPDATE products SET " + String.join(", ", columns) + " WHERE id = ?";
+        args.add(UuidBinary.toBytes(id));
+        if (patch.getVersion() != null) {
+            sql += " AND version = ?";
+            args.add(patch.getVersion());
+        }
+        if (jdbcTemplate.update(sql, args.toArray()) == 0) {
+            if (!productRepository.existsById(id)) {
+                return null;
+            }
+            throw new OptimisticLockingFailureException(
+                    "El producto fue modificado por otra petición; recargue la versión actual");
+        }
+        Product saved = productRepository.findAllWithRelationsByIdIn(List.of(id)).get(0);
+        refreshProduct(saved);
+        return saved;
+    }
+
+    /**
+     * Descuenta stock con un UPDATE condicional: la fila solo cambia si quedan
+     * unidades suficientes, así que dos compras simultáneas no pueden dejar el
+     * stock negativo. El bloqueo de la fila dura hasta el fin de la transacción;
+     * quien descuente varios productos debe hacerlo siempre en el mismo orden.
+     *
+     * @param id UUID del producto
+     * @param quantity Unidades a descontar (mayor que cero)
+     * @return true si se descontó, false si el producto no existe o no alcanza el stock
+     */
+    @Transactional
+    public boolean decrementStock(UUID id, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("La cantidad a descontar debe ser mayor que cero");
+        }
+        return jdbcTemplate.update(DECREMENT_STOCK_SQL, quantity, UuidBinary.toBytes(id), quantity) == 1;
+    }
+
+    /**
+     * Stock actual de varios productos en una sola consulta.
+     * Dentro de la transacción que descontó, devuelve el valor ya descontado.
+     *
+     * @param ids IDs de los productos
+     * @return Stock por producto; los inexistentes no aparecen
+     */
+    public Map<UUID, Integer> findAvailableQuantities(Collection<UUID> ids) {
+        Map<UUID, Integer> result = new HashMap<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        List<Object> args = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            args.add(UuidBinary.toBytes(id));
+        }
+        String sql = "SELECT id, available_quantity FROM products WHERE id IN ("
+                + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        jdbcTemplate.query(sql, rs -> {
+            result.put(UuidBinary.fromBytes(rs.getBytes(1)), rs.getInt(2));
+        }, args.toArray());
+        return result;
+    }
+
+    /**
+     * Propaga el stock de productos que cambiaron por SQL (órdenes, reservas).
+     * Los resúmenes se releen de la base después del UPDATE, no se arman con
+     * entidades cargadas antes: la fila queda bloqueada por el UPDATE hasta el
+     * commit, así que lo leído es lo que se confirma, incluidos precio y estado
+     * cambiados por otra petición antes del descuento.
+     * El índice de búsqueda no guarda stock, así que no se toca.
+     *
+     * @param ids Productos cuyo stock cambió en la transacción actual
+     */
+    public void refreshStock(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<ProductSummary> summaries = productRepository.findSummariesByIdIn(ids);
+        Runnable refresh = () -> {
+            activeCatalog.applyAll(summaries);
+            for (ProductSummary summary : summaries) {
+                changeLog.record(summary.getId(), summary);
+                productStream.publish(ProductStockEvent.of(summary));
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh.run();
+                }
+            });
+        } else {
+            refresh.run();
+        }
+    }
+
+    /**
+     * Aplica los mismos cambios de precio, estado o stock a varios productos.
+     * Usa UPDATE por conjunto en tramos de IDs dentro de una sola transacción y
+     * propaga los productos modificados una sola vez al confirmarse.
+     *
+     * @param request IDs y campos a cambiar (los nulos no se modifican)
+     * @param username Si no es null, solo se modifican productos de este vendedor
+     * @return Número de productos modificados e IDs omitidos
+     * @throws IllegalArgumentException si la petición está vacía o tiene valores inválidos
+     */
+    @Transactional
+    public BulkUpdateResult bulkUpdate(ProductBulkUpdate request, String username) {
+        if (request == null || request.getIds() == null || request.getIds().isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un ID de producto");
+        }
+        if (request.getIds().contains(null)) {
+            throw new IllegalArgumentException("La lista de IDs contiene valores nulos");
+        }
+        if (request.getPrice() == null && request.getStatus() == null && request.getAvailableQuantity() == null) {
+            throw new IllegalArgumentException("Debe indicar price, status o availableQuantity");
+        }
+        if (request.getPrice() != null && request.getPrice().signum() < 0) {
+            throw new IllegalArgumentException("El precio no puede ser negativo");
+        }
+        if (request.getAvailableQuantity() != null && request.getAvailableQuantity() < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa");
+        }
+        List<UUID> ids = new ArrayList<>(new LinkedHashSet<>(request.getIds()));
+        if (ids.size() > maxBulkIds) {
+            throw new IllegalArgumentException("Se pueden actualizar como máximo " + maxBulkIds + " productos por petición");
+        }
+
+        int updated = 0;
+        for (int from = 0; from < ids.size(); from += bulkChunkSize) {
+            List<UUID> chunk = ids.subList(from, Math.min(ids.size(), from + bulkChunkSize));
+            updated += productRepository.bulkUpdate(chunk, request.getPrice(), request.getStatus(),
+                    request.getAvailableQuantity(), username);
+        }
+
+        List<Product> changed = new ArrayList<>(updated);
+        Map<UUID, Long> likes = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += bulkChunkSize) {
+            List<UUID> chunk = ids.subList(from, Math.min(ids.size(), from + bulkChunkSize));
+            for (Product product : productRepository.findAllWithRelationsByIdIn(chunk)) {
+                if (username == null || (product.getUser() != null && username.equals(product.getUser().getUsername()))) {
+                    changed.add(product);
+                }
+            }
+            likes.putAll(productLikeService.countLikes(chunk));
+        }
+        refreshProducts(changed, likes);
+
+        Set<UUID> changedIds = new HashSet<>();
+        for (Product product : changed) {
+            changedIds.add(product.getId());
+        }
+        List<UUID> skipped = new ArrayList<>();
+        for (UUID id : ids) {
+            if (!changedIds.contains(id)) {
+                skipped.add(id);
+            }
+        }
+        return new BulkUpdateResult(updated, skipped);
+    }
+
     /**
      * Elimina un producto del sistema.
      * Verifica que el producto exista antes de eliminarlo.
@@ -103,6 +591,14 @@ public class ProductService {
     public boolean deleteProduct(UUID id) {
         if (productRepository.existsById(id)) {
             productRepository.deleteById(id);
+            searchIndex.remove(id);
+            suggestionIndex.remove(id);
+            activeCatalog.remove(id);
+            changeLog.record(id, null);
+            productViewService.forget(id);
+            productLikeService.forget(id);
+            trendingTracker.remove(id);
+            productStream.publish(ProductStockEvent.removed(id));
             return true;
         }
         return false;
@@ -182,4 +678,388 @@ public class ProductService {
                 searchTerm.trim()
         );
     }
+
+    /**
+     * Lista todos los productos por páginas usando un cursor opaco.
+     *
+     * @param after Cursor devuelto por la página anterior (null para la primera)
+     * @param limit Tamaño de página solicitado (se limita al máximo configurado)
+     * @return Página de productos y cursor siguiente
+     */
+    public CursorPage<ProductSummary> getAllProducts(String after, Integer limit) {
+        return page(after, limit, productRepository::findPageAfter);
+    }
+
+    /**
+     * Lista productos activos por páginas usando un cursor opaco.
+     *
+     * @param after Cursor devuelto por la página anterior (null para la primera)
+     * @param limit Tamaño de página solicitado
+     * @return Página de productos activos y cursor siguiente
+     */
+    public CursorPage<ProductSummary> getActiveProducts(String after, Integer limit) {
+        CatalogSnapshot snapshot = snapshotEnabled ? activeCatalog.current() : null;
+        if (snapshot != null) {
+            return page(after, limit, (cursor, pageable) -> snapshot.page(cursor, pageable.getPageSize()));
+        }
+        List<ProductStatus> statuses = Arrays.asList(ProductStatus.ACTIVE, ProductStatus.AVAILABLE);
+        return page(after, limit, (cursor, pageable) -> productRepository.findPageByStatusInAfter(statuses, cursor, pageable));
+    }
+
+    /**
+     * Indica, sin consultar la base, si el producto existe según la foto del
+     * catálogo o el índice de búsqueda. Un false no prueba que no exista: los
+     * índices pueden no estar construidos todavía.
+     *
+     * @param id UUID del producto
+     * @return true si el producto está en la foto o en el índice
+     */
+    public boolean isKnownProduct(UUID id) {
+        CatalogSnapshot snapshot = snapshotEnabled ? activeCatalog.current() : null;
+        return (snapshot != null && snapshot.find(id) != null) || searchIndex.contains(id);
+    }
+
+    /**
+     * Devuelve el catálogo activo completo (ACTIVE y AVAILABLE) como resúmenes.
+     * Se sirve desde la foto en memoria salvo que esté desactivada o aún no exista.
+     *
+     * @return Lista inmutable de productos activos ordenados por ID
+     */
+    public List<ProductSummary> getActiveCatalog() {
+        CatalogSnapshot snapshot = snapshotEnabled ? activeCatalog.current() : null;
+        if (snapshot != null) {
+            return snapshot.getProducts();
+        }
+        return productRepository.findSummariesByStatusIn(Arrays.asList(ProductStatus.ACTIVE, ProductStatus.AVAILABLE));
+    }
+
+    /**
+     * Productos activos en tendencia según vistas, likes y unidades vendidas recientes.
+     * El ranking sale del sketch en memoria; los datos, de la foto del catálogo
+     * (o de una sola consulta IN si la foto está desactivada).
+     *
+     * @param limit Número de productos (por defecto 10, máximo la capacidad del ranking)
+     * @return Productos ordenados de mayor a menor actividad
+     */
+    public List<ProductSummary> getTrending(Integer limit) {
+        int size = limit == null || limit <= 0 ? 10 : Math.min(limit, maxPageSize);
+        // Se piden más IDs de los necesarios porque algunos pueden estar inactivos
+        List<UUID> ids = trendingTracker.top(size * 2);
+        CatalogSnapshot snapshot = snapshotEnabled ? activeCatalog.current() : null;
+        List<ProductSummary> products = new ArrayList<>();
+        if (snapshot != null) {
+            for (UUID id : ids) {
+                ProductSummary summary = snapshot.find(id);
+                if (summary != null) {
+                    products.add(summary);
+                }
+            }
+        } else {
+            for (ProductSummary summary : loadInOrder(ids)) {
+                if (summary.getStatus() == ProductStatus.ACTIVE || summary.getStatus() == ProductStatus.AVAILABLE) {
+                    products.add(summary);
+                }
+            }
+        }
+        return products.size() > size ? new ArrayList<>(products.subList(0, size)) : products;
+    }
+
+    /**
+     * Cambios del catálogo activo desde una versión, para clientes con caché.
+     * Para empezar, el cliente pide sin versión, guarda la versión devuelta y
+     * luego descarga /active; los cambios que ocurran entre ambas llamadas
+     * llegarán de nuevo en la siguiente sincronización.
+     *
+     * @param since Última versión conocida por el cliente (null si no tiene)
+     * @return Altas/cambios, bajas y versión actual
+     */
+    public ProductChanges getChangesSince(Long since) {
+        return changeLog.since(since);
+    }
+
+    /**
+     * Propaga el estado guardado de un producto a los índices y a la foto del catálogo.
+     * Dentro de una transacción se aplica al confirmarse, para no publicar cambios
+     * que luego se revierten (por ejemplo, el stock descontado por una orden).
+     *
+     * @param saved Producto recién guardado
+     */
+    public void refreshProduct(Product saved) {
+        ProductDocument document = ProductDocument.from(saved);
+        Runnable refresh = () -> {
+            // Se arma al confirmar: la versión de la entidad ya incluye el flush del commit
+            ProductSummary summary = ProductSummary.from(saved);
+            searchIndex.index(document);
+            suggestionIndex.upsert(document, productLikeService.getLikesCountByProduct(document.getId()));
+            activeCatalog.apply(summary);
+            changeLog.record(summary.getId(), summary);
+            productStream.publish(ProductStockEvent.of(summary));
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh.run();
+                }
+            });
+        } else {
+            refresh.run();
+        }
+    }
+
+    /**
+     * Propaga un lote de productos guardados (importación o actualización masiva).
+     * La foto del catálogo se reemplaza una sola vez para todo el lote y, dentro
+     * de una transacción, todo se aplica al confirmarse, como en refreshProduct.
+     *
+     * @param products Productos guardados
+     * @param likes Likes conocidos por producto (los ausentes cuentan como 0)
+     */
+    public void refreshProducts(List<Product> products, Map<UUID, Long> likes) {
+        List<ProductDocument> documents = new ArrayList<>(products.size());
+        for (Product product : products) {
+            documents.add(ProductDocument.from(product));
+        }
+        Runnable refresh = () -> {
+            List<ProductSummary> summaries = new ArrayList<>(products.size());
+            for (Product product : products) {
+                summaries.add(ProductSummary.from(product));
+            }
+            for (ProductDocument document : documents) {
+                searchIndex.index(document);
+                suggestionIndex.upsert(document, likes.getOrDefault(document.getId(), 0L));
+            }
+            activeCatalog.applyAll(summaries);
+            for (ProductSummary summary : summaries) {
+                changeLog.record(summary.getId(), summary);
+                productStream.publish(ProductStockEvent.of(summary));
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh.run();
+                }
+            });
+        } else {
+            refresh.run();
+        }
+    }
+
+    /**
+     * Lista los productos de un vendedor por páginas usando un cursor opaco.
+     *
+     * @param username Nombre de usuario del vendedor
+     * @param after Cursor devuelto por la página anterior (null para la primera)
+     * @param limit Tamaño de página solicitado
+     * @return Página de productos del vendedor y cursor siguiente
+     */
+    public CursorPage<ProductSummary> getProductsByUsername(String username, String after, Integer limit) {
+        return page(after, limit, (cursor, pageable) -> productRepository.findPageByUsernameAfter(username, cursor, pageable));
+    }
+
+    /**
+     * Lista los productos de una categoría por páginas usando un cursor opaco.
+     *
+     * @param categoryName Nombre de la categoría
+     * @param after Cursor devuelto por la página anterior (null para la primera)
+     * @param limit Tamaño de página solicitado
+     * @return Página de productos de la categoría y cursor siguiente
+     */
+    public CursorPage<ProductSummary> getProductsByCategoryName(String categoryName, String after, Integer limit) {
+        return page(after, limit, (cursor, pageable) -> productRepository.findPageByCategoryNameAfter(categoryName, cursor, pageable));
+    }
+
+    /**
+     * Normaliza el tamaño de página pedido al rango permitido.
+     */
+    public int resolvePageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return Math.min(defaultPageSize, maxPageSize);
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    /**
+     * Ejecuta una consulta keyset pidiendo un elemento extra para saber si hay más páginas.
+     */
+    private CursorPage<ProductSummary> page(String after, Integer limit, BiFunction<UUID, PageRequest, List<ProductSummary>> query) {
+        UUID cursor = CursorPage.decodeCursor(after);
+        int size = resolvePageSize(limit);
+        List<ProductSummary> rows = query.apply(cursor == null ? FIRST_CURSOR : cursor, PageRequest.ofSize(size + 1));
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<ProductSummary> items = rows.subList(0, size);
+        return new CursorPage<>(items, CursorPage.encodeCursor(items.get(size - 1).getId()));
+    }
+
+    /**
+     * Busca productos activos en el índice en memoria.
+     * El modo por defecto ordena por relevancia (BM25); el modo "fuzzy" compara
+     * trigramas del nombre y tolera errores de escritura.
+     * Solo se cargan de la base de datos los productos de la página pedida.
+     *
+     * @param searchTerm Término de búsqueda (vacío para listar activos)
+     * @param mode Modo de búsqueda: null o "ranked" para BM25, "fuzzy" para trigramas
+     * @param offset Número de resultados a saltar
+     * @param limit Tamaño de página solicitado
+     * @return Página de productos ordenados por relevancia y total de coincidencias
+     * @throws IllegalArgumentException si el modo no es válido
+     */
+    public SearchPage<ProductSummary> searchActiveProducts(String searchTerm, String mode, Integer offset, Integer limit) {
+        int from = offset == null ? 0 : Math.max(0, Math.min(offset, maxSearchOffset));
+        int size = resolvePageSize(limit);
+        ProductSearchIndex.Hits hits;
+        if (mode == null || mode.isBlank() || mode.equalsIgnoreCase("ranked")) {
+            hits = searchIndex.search(searchTerm, from, size);
+        } else if (mode.equalsIgnoreCase("fuzzy")) {
+            hits = searchIndex.fuzzySearch(searchTerm, fuzzyThreshold, from, size);
+        } else {
+            throw new IllegalArgumentException("Modo de búsqueda no soportado: " + mode);
+        }
+        return new SearchPage<>(loadInOrder(hits.getIds()), hits.getTotal(), from, size);
+    }
+
+    /**
+     * Búsqueda con facetas: devuelve la página filtrada y los conteos por
+     * categoría, estado y rango de precio, todo calculado desde el índice en memoria.
+     *
+     * @param searchTerm Texto de búsqueda (opcional)
+     * @param filter Categorías, estados y rango de precio seleccionados
+     * @param sort relevance (por defecto), price_asc, price_desc o name_asc
+     * @param offset Número de resultados a saltar
+     * @param limit Tamaño de página solicitado
+     * @return Página de productos con sus facetas
+     * @throws IllegalArgumentException si el orden no es válido
+     */
+    public FacetedSearchPage<ProductSummary> facetedSearch(String searchTerm, FacetFilter filter, String sort,
+                                                           Integer offset, Integer limit) {
+        int from = offset == null ? 0 : Math.max(0, Math.min(offset, maxSearchOffset));
+        int size = resolvePageSize(limit);
+        ProductSearchIndex.FacetedHits hits = searchIndex.facetedSearch(searchTerm, filter, priceBounds,
+                searchOrder(sort), from, size);
+
+        List<FacetedSearchPage.FacetCount> categories = new ArrayList<>();
+        hits.getCategoryCounts().forEach((name, count) -> categories.add(new FacetedSearchPage.FacetCount(name, count)));
+        categories.sort((a, b) -> a.getCount() != b.getCount()
+                ? Integer.compare(b.getCount(), a.getCount())
+                : a.getValue().compareTo(b.getValue()));
+
+        List<FacetedSearchPage.FacetCount> statuses = new ArrayList<>();
+        hits.getStatusCounts().forEach((status, count) -> statuses.add(new FacetedSearchPage.FacetCount(status.name(), count)));
+
+        List<FacetedSearchPage.PriceRange> priceRanges = new ArrayList<>();
+        int[] priceCounts = hits.getPriceCounts();
+        for (int i = 0; i < priceCounts.length; i++) {
+            BigDecimal min = i == 0 ? null : priceBounds[i - 1];
+            BigDecimal max = i == priceBounds.length ? null : priceBounds[i];
+            priceRanges.add(new FacetedSearchPage.PriceRange(min, max, priceCounts[i]));
+        }
+
+        return new FacetedSearchPage<>(loadInOrder(hits.getIds()), hits.getTotal(), from, size,
+                categories, statuses, priceRanges);
+    }
+
+    private static Comparator<ProductDocument> searchOrder(String sort) {
+        if (sort == null || sort.isBlank() || "relevance".equals(sort)) {
+            return null;
+        }
+        Comparator<ProductDocument> byPrice = Comparator.comparing(ProductDocument::getPrice,
+                Comparator.nullsLast(Comparator.naturalOrder()));
+        switch (sort) {
+            case "price_asc":
+                return byPrice;
+            case "price_desc":
+                return Comparator.comparing(ProductDocument::getPrice, Comparator.nullsLast(Comparator.<BigDecimal>reverseOrder()));
+            case "name_asc":
+                return Comparator.comparing(ProductDocument::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+            default:
+                throw new IllegalArgumentException("Orden no soportado: " + sort);
+        }
+    }
+
+    /**
+     * Sugiere nombres de productos activos y categorías que empiezan por el prefijo.
+     * Se responde desde el trie en memoria, ordenado por popularidad.
+     *
+     * @param prefix Texto escrito por el usuario
+     * @param limit Número de sugerencias (por defecto y como máximo 10)
+     * @return Lista de sugerencias
+     */
+    public List<Suggestion> suggest(String prefix, Integer limit) {
+        int size = limit == null || limit <= 0 ? SuggestionIndex.TOP_N : Math.min(limit, SuggestionIndex.TOP_N);
+        return suggestionIndex.suggest(prefix, size);
+    }
+
+    /**
+     * Reconstruye los índices de búsqueda y autocompletado al iniciar la aplicación.
+     * Lee los productos por lotes usando una proyección ligera.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildSearchIndex() {
+        List<ProductDocument> documents = new ArrayList<>();
+        UUID after = FIRST_CURSOR;
+        List<ProductDocument> batch;
+        do {
+            batch = productRepository.findDocumentsAfter(after, PageRequest.ofSize(INDEX_BATCH_SIZE));
+            documents.addAll(batch);
+            if (!batch.isEmpty()) {
+                after = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == INDEX_BATCH_SIZE);
+        searchIndex.rebuild(documents);
+
+        Map<UUID, Long> likes = new HashMap<>();
+        for (Object[] row : productLikeRepository.countGroupedByProduct()) {
+            likes.put((UUID) row[0], (Long) row[1]);
+        }
+        suggestionIndex.rebuild(documents, likes);
+        log.info("Índice de búsqueda construido con {} productos", documents.size());
+    }
+
+    /**
+     * Construye la foto del catálogo activo al iniciar la aplicación.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildCatalogSnapshot() {
+        if (!snapshotEnabled) {
+            return;
+        }
+        List<ProductStatus> statuses = Arrays.asList(ProductStatus.ACTIVE, ProductStatus.AVAILABLE);
+        List<ProductSummary> products = new ArrayList<>();
+        UUID after = FIRST_CURSOR;
+        List<ProductSummary> batch;
+        do {
+            batch = productRepository.findPageByStatusInAfter(statuses, after, PageRequest.ofSize(INDEX_BATCH_SIZE));
+            products.addAll(batch);
+            if (!batch.isEmpty()) {
+                after = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == INDEX_BATCH_SIZE);
+        activeCatalog.rebuild(products);
+        log.info("Foto del catálogo activo construida con {} productos", products.size());
+    }
+
+    /**
+     * Carga resúmenes de productos por ID con una sola consulta y conserva el orden pedido.
+     */
+    private List<ProductSummary> loadInOrder(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<UUID, ProductSummary> byId = new HashMap<>();
+        for (ProductSummary summary : productRepository.findSummariesByIdIn(ids)) {
+            byId.put(summary.getId(), summary);
+        }
+        List<ProductSummary> ordered = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            ProductSummary summary = byId.get(id);
+            if (summary != null) {
+                ordered.add(summary);
+            }
+        }
+        return ordered;
+    }
 }
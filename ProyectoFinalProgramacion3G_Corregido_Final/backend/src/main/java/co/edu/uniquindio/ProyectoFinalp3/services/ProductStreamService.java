@@ -0,0 +1,319 @@
+/**
+ * Servicio de streams de productos.
+ * Envía por Server-Sent Events los cambios de stock, estado y precio.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.services;
+
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductStockEvent;
+import co.edu.uniquindio.ProyectoFinalp3.search.TextAnalyzer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Suscripciones SSE por producto y por categoría.
+ *
+ * Las conexiones usan el modo asíncrono del servlet, así que no ocupan un hilo
+ * mientras esperan. Los cambios se acumulan por producto y un único hilo los
+ * reparte cada ventana: si un producto cambia varias veces dentro de la ventana
+ * (por ejemplo, en una venta relámpago) solo se envía su último estado.
+ * Ese mismo hilo agrega un comentario periódico para mantener viva la conexión
+ * y detectar clientes desconectados.
+ *
+ * El hilo de la ventana no escribe en las conexiones: deja cada evento en la
+ * cola del suscriptor y un grupo pequeño de hilos la vacía, así un cliente lento
+ * no retrasa a los demás. Si la cola de un cliente supera max-backlog, se cierra
+ * su conexión y el navegador se reconecta.
+ */
+@Service
+public class ProductStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductStreamService.class);
+
+    /**
+     * Ventana de agrupación de eventos por producto.
+     */
+    @Value("${app.products.stream.window-ms:250}")
+    private long windowMs;
+
+    /**
+     * Tiempo máximo de vida de una conexión; el navegador se reconecta solo.
+     */
+    @Value("${app.products.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    /**
+     * Intervalo entre comentarios de mantenimiento de la conexión.
+     */
+    @Value("${app.products.stream.heartbeat-ms:20000}")
+    private long heartbeatMs;
+
+    /**
+     * Número máximo de conexiones abiertas a la vez.
+     */
+    @Value("${app.products.stream.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    /**
+     * Hilos que escriben los eventos en las conexiones.
+     */
+    @Value("${app.products.stream.send-threads:4}")
+    private int sendThreads;
+
+    /**
+     * Eventos sin enviar que se toleran por conexión antes de cerrarla.
+     */
+    @Value("${app.products.stream.max-backlog:100}")
+    private int maxBacklog;
+
+    private static final Object PING = new Object();
+
+    private final Map<UUID, Set<Subscriber>> productSubscribers = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> categorySubscribers = new ConcurrentHashMap<>();
+    private final Map<UUID, ProductStockEvent> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    private ScheduledExecutorService scheduler;
+
+    private ExecutorService senders;
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger senderCount = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(sendThreads, runnable -> {
+            Thread thread = new Thread(runnable, "product-stream-send-" + senderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> safely(this::flush), windowMs, windowMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(() -> safely(this::heartbeat), heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    /**
+     * Abre una suscripción a los cambios de un producto.
+     *
+     * @throws IllegalStateException si se alcanzó el máximo de conexiones
+     */
+    public SseEmitter subscribeProduct(UUID productId) {
+        return register(productSubscribers, productId);
+    }
+
+    /**
+     * Abre una suscripción a los cambios de los productos de una categoría.
+     *
+     * @throws IllegalStateException si se alcanzó el máximo de conexiones
+     */
+    public SseEmitter subscribeCategory(String categoryName) {
+        return register(categorySubscribers, categoryKey(categoryName));
+    }
+
+    /**
+     * Encola el estado nuevo de un producto; reemplaza al pendiente si lo hay.
+     */
+    public void publish(ProductStockEvent event) {
+        if (productSubscribers.isEmpty() && categorySubscribers.isEmpty()) {
+            return;
+        }
+        pending.put(event.getProductId(), event);
+    }
+
+    private <K> SseEmitter register(Map<K, Set<Subscriber>> registry, K key) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new IllegalStateException("Se alcanzó el máximo de suscripciones en tiempo real");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        // Alta y baja modifican el conjunto dentro de compute, así una baja no puede quitar un conjunto recién llenado
+        registry.compute(key, (k, set) -> {
+            Set<Subscriber> target = set != null ? set : ConcurrentHashMap.newKeySet();
+            target.add(subscriber);
+            return target;
+        });
+        Runnable unregister = () -> {
+            subscriber.closed.set(true);
+            boolean[] removed = new boolean[1];
+            registry.computeIfPresent(key, (k, set) -> {
+                removed[0] = set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+            if (removed[0]) {
+                subscribers.decrementAndGet();
+            }
+        };
+        emitter.onCompletion(unregister);
+        emitter.onTimeout(unregister);
+        emitter.onError(error -> unregister.run());
+        return emitter;
+    }
+
+    /**
+     * Envía los eventos acumulados en la última ventana.
+     */
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<ProductStockEvent> events = new ArrayList<>(pending.size());
+        for (UUID productId : new ArrayList<>(pending.keySet())) {
+            ProductStockEvent event = pending.remove(productId);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        for (ProductStockEvent event : events) {
+            send(productSubscribers.get(event.getProductId()), event);
+            if (event.getCategory() != null) {
+                send(categorySubscribers.get(categoryKey(event.getCategory())), event);
+            }
+        }
+    }
+
+    private void send(Set<Subscriber> targets, Object message) {
+        if (targets == null) {
+            return;
+        }
+        for (Subscriber subscriber : targets) {
+            subscriber.offer(message);
+        }
+    }
+
+    private void heartbeat() {
+        for (Set<Subscriber> targets : productSubscribers.values()) {
+            send(targets, PING);
+        }
+        for (Set<Subscriber> targets : categorySubscribers.values()) {
+            send(targets, PING);
+        }
+    }
+
+    /**
+     * Evita que un error inesperado cancele la tarea periódica.
+     */
+    private void safely(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.warn("Error enviando eventos de productos", e);
+        }
+    }
+
+    private static String categoryKey(String categoryName) {
+        return TextAnalyzer.fold(categoryName == null ? "" : categoryName.trim());
+    }
+
+    /**
+     * Conexión con su cola de mensajes por enviar. A lo sumo un hilo la vacía a
+     * la vez, así los eventos de una conexión salen en orden.
+     */
+    private final class Subscriber implements Runnable {
+        final SseEmitter emitter;
+        final Queue<Object> outbox = new ConcurrentLinkedQueue<>();
+        final AtomicInteger backlog = new AtomicInteger();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * La conexión terminó o ya se pidió cerrarla.
+         */
+        final AtomicBoolean closed = new AtomicBoolean();
+
+        /**
+         * El cliente se atrasó demasiado; un hilo de envío cerrará la conexión.
+         */
+        volatile boolean dropped;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(Object message) {
+            if (closed.get() || dropped) {
+                return;
+            }
+            if (backlog.incrementAndGet() > maxBacklog) {
+                // El cliente no lee al ritmo de los eventos. No se cierra desde aquí: cerrar
+                // espera a que termine la escritura en curso, y eso bloquearía al hilo de la ventana
+                dropped = true;
+                outbox.clear();
+            } else {
+                outbox.add(message);
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false); // Apagando la aplicación
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            Object message;
+            while ((message = outbox.poll()) != null) {
+                backlog.decrementAndGet();
+                if (closed.get() || dropped) {
+                    continue;
+                }
+                try {
+                    if (message == PING) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    } else {
+                        emitter.send(SseEmitter.event().name("product").data(message));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    close(e);
+                }
+            }
+            scheduled.set(false);
+            if (dropped) {
+                close(new IllegalStateException("Conexión demasiado lenta"));
+            } else if (!outbox.isEmpty()) {
+                // Un mensaje pudo llegar entre el último poll y liberar la marca
+                schedule();
+            }
+        }
+
+        private void close(Throwable cause) {
+            if (closed.compareAndSet(false, true)) {
+                emitter.completeWithError(cause);
+            }
+        }
+    }
+}
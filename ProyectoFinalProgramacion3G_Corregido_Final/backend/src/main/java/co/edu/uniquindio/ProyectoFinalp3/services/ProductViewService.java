@@ -0,0 +1,216 @@
+/**
+ * Servicio de vistas de productos.
+ * Cuenta las vistas en memoria y las guarda por lotes.
+ */
+package co.edu.uniquindio.ProyectoFinalp3.services;
+
+import co.edu.uniquindio.ProyectoFinalp3.catalog.CatalogVersions;
+import co.edu.uniquindio.ProyectoFinalp3.catalog.TrendingTracker;
+import co.edu.uniquindio.ProyectoFinalp3.repository.ProductRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.UuidBinary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador de vistas con escritura diferida.
+ *
+ * Cada producto tiene un LongAdder, que reparte los incrementos concurrentes en
+ * celdas distintas, así que contar una vista no bloquea ni compite por una
+ * variable compartida. Un hilo propio suma lo pendiente cada cierto tiempo y lo
+ * guarda con UPDATE por lotes (view_count = view_count + delta).
+ *
+ * Los contadores nunca se reinician: se recuerda cuánto se guardó ya y solo se
+ * escribe la diferencia, para no perder vistas que lleguen durante el guardado.
+ * Las vistas guardadas en cada ciclo alimentan también las tendencias, sin
+ * agregar trabajo a la petición.
+ */
+@Service
+public class ProductViewService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductViewService.class);
+
+    private static final String FLUSH_SQL =
+            "UPDATE products SET view_count = COALESCE(view_count, 0) + ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TrendingTracker trendingTracker;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    /**
+     * Intervalo entre guardados de vistas pendientes.
+     */
+    @Value("${app.products.views.flush-ms:5000}")
+    private long flushMs;
+
+    /**
+     * Número de UPDATE por lote JDBC.
+     */
+    @Value("${app.products.views.batch-size:500}")
+    private int batchSize;
+
+    private final Map<UUID, Counter> counters = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-views");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron guardar las vistas de productos", e);
+            }
+        }, flushMs, flushMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Guarda las vistas pendientes antes de apagar la aplicación.
+     */
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron guardar las vistas pendientes al apagar", e);
+        }
+    }
+
+    /**
+     * Cuenta una vista del producto. Solo toca memoria.
+     */
+    public void recordView(UUID productId) {
+        Counter counter = counters.get(productId);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(productId, id -> new Counter());
+        }
+        counter.views.increment();
+    }
+
+    /**
+     * Cuenta una vista solo si el producto ya se está contando, es decir, si ya
+     * se sirvió completo desde el arranque. Es para las respuestas 304, que no
+     * consultan la base de datos y no saben si el producto existe.
+     *
+     * @return true si la vista se contó
+     */
+    public boolean recordRepeatView(UUID productId) {
+        Counter counter = counters.get(productId);
+        if (counter == null) {
+            return false;
+        }
+        counter.views.increment();
+        return true;
+    }
+
+    /**
+     * Vistas aún no guardadas en la base de datos.
+     */
+    public long pendingViews(UUID productId) {
+        Counter counter = counters.get(productId);
+        return counter == null ? 0 : counter.views.sum() - counter.flushed;
+    }
+
+    /**
+     * Vistas totales del producto: las guardadas más las pendientes.
+     *
+     * @return Total de vistas, o vacío si el producto no existe
+     */
+    public Optional<Long> getViewCount(UUID productId) {
+        return productRepository.findViewCount(productId).map(saved -> saved + pendingViews(productId));
+    }
+
+    /**
+     * Deja de contar un producto eliminado.
+     */
+    public void forget(UUID productId) {
+        counters.remove(productId);
+    }
+
+    /**
+     * Guarda en lotes las vistas acumuladas desde el último guardado.
+     */
+    synchronized void flush() {
+        List<UUID> ids = new ArrayList<>();
+        List<Counter> flushed = new ArrayList<>();
+        List<Long> totals = new ArrayList<>();
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<UUID, Counter> entry : counters.entrySet()) {
+            Counter counter = entry.getValue();
+            long total = counter.views.sum();
+            long delta = total - counter.flushed;
+            if (delta <= 0) {
+                continue;
+            }
+            ids.add(entry.getKey());
+            flushed.add(counter);
+            totals.add(total);
+            batch.add(new Object[] { delta, UuidBinary.toBytes(entry.getKey()) });
+            if (batch.size() == batchSize) {
+                write(batch, ids, flushed, totals);
+            }
+        }
+        write(batch, ids, flushed, totals);
+    }
+
+    private void write(List<Object[]> batch, List<UUID> ids, List<Counter> flushed, List<Long> totals) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int[] rows = jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+        // Solo después de escribir se marca como guardado; si falla se reintenta en el siguiente ciclo
+        for (int i = 0; i < flushed.size(); i++) {
+            if (rows[i] == 0) {
+                // El producto ya no existe: se deja de contar en lugar de acumular vistas que nunca se guardan
+                counters.remove(ids.get(i), flushed.get(i));
+                continue;
+            }
+            trendingTracker.recordViews(ids.get(i), (Long) batch.get(i)[0]);
+            flushed.get(i).flushed = totals.get(i);
+            // view_count va en el JSON del producto: su ETag cambia a lo sumo una vez por ciclo
+            catalogVersions.countersChanged(ids.get(i));
+        }
+        batch.clear();
+        ids.clear();
+        flushed.clear();
+        totals.clear();
+    }
+
+    /**
+     * Vistas contadas y cuántas de ellas ya se guardaron.
+     */
+    private static final class Counter {
+        final LongAdder views = new LongAdder();
+        volatile long flushed;
+    }
+}
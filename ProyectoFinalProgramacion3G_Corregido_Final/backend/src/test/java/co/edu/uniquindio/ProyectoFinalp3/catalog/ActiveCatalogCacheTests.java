@@ -0,0 +1,43 @@
+package co.edu.uniquindio.ProyectoFinalp3.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductSummary;
+import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Cambios aplicados fuera del orden en que se confirmaron.
+ */
+class ActiveCatalogCacheTests {
+
+	@Test
+	void ignoresOlderVersions() {
+		UUID id = UUID.randomUUID();
+		ActiveCatalogCache cache = new ActiveCatalogCache();
+		cache.rebuild(List.of(summary(id, ProductStatus.ACTIVE, "10", 1)));
+
+		cache.apply(summary(id, ProductStatus.ACTIVE, "30", 3));
+		cache.applyAll(List.of(summary(id, ProductStatus.ACTIVE, "20", 2)));
+		assertEquals(new BigDecimal("30"), cache.current().find(id).getPrice());
+
+		// Una baja no se deshace con un resumen anterior
+		cache.apply(summary(id, ProductStatus.INACTIVE, "30", 4));
+		cache.apply(summary(id, ProductStatus.ACTIVE, "30", 3));
+		assertNull(cache.current().find(id));
+		cache.apply(summary(id, ProductStatus.ACTIVE, "40", 5));
+		assertEquals(new BigDecimal("40"), cache.current().find(id).getPrice());
+
+		cache.remove(id);
+		cache.apply(summary(id, ProductStatus.ACTIVE, "40", 6));
+		assertNull(cache.current().find(id));
+	}
+
+	private static ProductSummary summary(UUID id, ProductStatus status, String price, long version) {
+		return new ProductSummary(id, "Producto", new BigDecimal(price), null, status, "General", 1, version);
+	}
+}
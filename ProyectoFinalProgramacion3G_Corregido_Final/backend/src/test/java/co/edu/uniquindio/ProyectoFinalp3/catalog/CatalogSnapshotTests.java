@@ -0,0 +1,87 @@
+package co.edu.uniquindio.ProyectoFinalp3.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import co.edu.uniquindio.ProyectoFinalp3.dto.ProductSummary;
+import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Fotos del catálogo comparadas con un TreeMap tras cambios al azar.
+ */
+class CatalogSnapshotTests {
+
+	@Test
+	void patchesKeepOrderAndContents() {
+		Random random = new Random(42);
+		List<UUID> ids = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			ids.add(new UUID(random.nextLong(), random.nextLong()));
+		}
+		TreeMap<UUID, ProductSummary> expected = new TreeMap<>(CatalogSnapshot.ID_ORDER);
+		List<ProductSummary> initial = new ArrayList<>();
+		for (UUID id : ids.subList(0, 1000)) {
+			ProductSummary product = summary(id, 1);
+			initial.add(product);
+			expected.put(id, product);
+		}
+		CatalogSnapshot snapshot = CatalogSnapshot.of(1, initial);
+		CatalogSnapshot first = snapshot;
+
+		for (int step = 0; step < 5000; step++) {
+			UUID id = ids.get(random.nextInt(ids.size()));
+			int action = random.nextInt(3);
+			if (action == 0) {
+				snapshot = snapshot.without(id);
+				expected.remove(id);
+			} else if (action == 1) {
+				ProductSummary product = summary(id, step);
+				snapshot = snapshot.with(product);
+				expected.put(id, product);
+			} else {
+				List<ProductSummary> batch = new ArrayList<>();
+				for (int i = 0; i < 20; i++) {
+					ProductSummary product = summary(ids.get(random.nextInt(ids.size())), step);
+					batch.add(product);
+					expected.put(product.getId(), product);
+				}
+				snapshot = snapshot.withAll(batch);
+			}
+		}
+
+		assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(snapshot.getProducts()));
+		for (UUID id : ids) {
+			assertSame(expected.get(id), snapshot.find(id));
+		}
+		List<ProductSummary> paged = new ArrayList<>();
+		UUID after = null;
+		List<ProductSummary> page;
+		while (!(page = snapshot.page(after, 37)).isEmpty()) {
+			paged.addAll(page);
+			after = page.get(page.size() - 1).getId();
+		}
+		assertEquals(new ArrayList<>(expected.values()), paged);
+		// La foto original no cambió
+		assertEquals(1000, first.getProducts().size());
+	}
+
+	@Test
+	void removingMissingProductKeepsSnapshot() {
+		CatalogSnapshot empty = CatalogSnapshot.of(1, List.of());
+		assertSame(empty, empty.without(UUID.randomUUID()));
+		assertNull(empty.find(UUID.randomUUID()));
+		assertEquals(List.of(), empty.page(null, 10));
+	}
+
+	private static ProductSummary summary(UUID id, int quantity) {
+		return new ProductSummary(id, "Producto", BigDecimal.TEN, null, ProductStatus.ACTIVE, "General", quantity, 0L);
+	}
+}
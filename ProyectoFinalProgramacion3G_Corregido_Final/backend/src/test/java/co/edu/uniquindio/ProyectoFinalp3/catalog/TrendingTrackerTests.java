@@ -0,0 +1,59 @@
+package co.edu.uniquindio.ProyectoFinalp3.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Desalojo del top-K y decaimiento exponencial del sketch de tendencias.
+ */
+class TrendingTrackerTests {
+
+	@Test
+	void weakerCandidatesAreEvicted() {
+		TrendingTracker tracker = new TrendingTracker(4, 1 << 16, 3, 60);
+		UUID a = UUID.randomUUID();
+		UUID b = UUID.randomUUID();
+		UUID c = UUID.randomUUID();
+		UUID d = UUID.randomUUID();
+		UUID e = UUID.randomUUID();
+		tracker.record(a, 5);
+		tracker.record(b, 4);
+		tracker.record(c, 3);
+		// Con el top lleno, un producto más débil que el mínimo no entra
+		tracker.record(d, 1);
+		assertEquals(List.of(a, b, c), tracker.top(10));
+		// Uno más fuerte desaloja al mínimo
+		tracker.record(e, 10);
+		assertEquals(List.of(e, a, b), tracker.top(10));
+		// El sketch conserva lo acumulado: d vuelve a competir con su suma
+		tracker.record(d, 4.5);
+		assertEquals(List.of(e, d, a), tracker.top(10));
+		assertEquals(List.of(e), tracker.top(1));
+
+		tracker.remove(a);
+		assertEquals(List.of(e, d), tracker.top(10));
+		tracker.record(a, 0);
+		assertEquals(List.of(e, d), tracker.top(10));
+	}
+
+	@Test
+	void recentActivityOutweighsOlderActivity() throws InterruptedException {
+		// Vida media de 30 ms
+		TrendingTracker tracker = new TrendingTracker(4, 1 << 10, 10, 0.0005);
+		UUID old = UUID.randomUUID();
+		UUID recent = UUID.randomUUID();
+		UUID latest = UUID.randomUUID();
+		tracker.record(old, 100);
+		Thread.sleep(300);
+		tracker.record(recent, 1);
+		assertEquals(List.of(recent, old), tracker.top(10));
+
+		// Tras más de 30 vidas medias el tracker se reescala sin perder el orden
+		Thread.sleep(1500);
+		tracker.record(latest, 1);
+		assertEquals(List.of(latest, recent, old), tracker.top(10));
+	}
+}
@@ -0,0 +1,159 @@
+package co.edu.uniquindio.ProyectoFinalp3.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Reintentos, claves reutilizadas y duplicados simultáneos con la cabecera Idempotency-Key.
+ */
+@SpringBootTest(properties = {
+		"spring.jpa.show-sql=false",
+		"logging.level.org.hibernate.SQL=INFO",
+		"logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+		"logging.level.org.springframework.web=INFO",
+		"logging.level.org.springframework.security=INFO",
+		"logging.level.co.edu.uniquindio.ProyectoFinalp3=INFO"
+})
+@ActiveProfiles("h2")
+class IdempotencyFilterTests {
+
+	private static final String BODY = "{\"items\":[{\"productId\":\"1\",\"quantity\":2}]}";
+
+	@Autowired
+	private IdempotencyFilter filter;
+
+	@Test
+	void replaysStoredResponse() throws Exception {
+		String key = UUID.randomUUID().toString();
+		AtomicInteger calls = new AtomicInteger();
+		FilterChain chain = created(calls, null);
+
+		MockHttpServletResponse first = send(key, BODY, chain);
+		assertEquals(201, first.getStatus());
+		assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+
+		MockHttpServletResponse retry = send(key, BODY, chain);
+		assertEquals(1, calls.get());
+		assertEquals(201, retry.getStatus());
+		assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals(first.getContentAsString(), retry.getContentAsString());
+	}
+
+	@Test
+	void rejectsKeyReusedWithAnotherBody() throws Exception {
+		String key = UUID.randomUUID().toString();
+		AtomicInteger calls = new AtomicInteger();
+		FilterChain chain = created(calls, null);
+
+		send(key, BODY, chain);
+		MockHttpServletResponse other = send(key, BODY.replace("2", "3"), chain);
+		assertEquals(422, other.getStatus());
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	void serverErrorsAreNotStored() throws Exception {
+		String key = UUID.randomUUID().toString();
+		AtomicInteger calls = new AtomicInteger();
+		FilterChain failing = (request, response) -> {
+			calls.incrementAndGet();
+			((HttpServletResponse) response).setStatus(503);
+		};
+
+		assertEquals(503, send(key, BODY, failing).getStatus());
+		// La clave queda libre y el reintento llega al controlador
+		assertEquals(201, send(key, BODY, created(calls, null)).getStatus());
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	void concurrentDuplicatesRunOnce() throws Exception {
+		String key = UUID.randomUUID().toString();
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		FilterChain chain = created(calls, release);
+		int duplicates = 10;
+		Queue<MockHttpServletResponse> responses = new ConcurrentLinkedQueue<>();
+		Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+		ExecutorService pool = Executors.newFixedThreadPool(duplicates);
+		for (int i = 0; i < duplicates; i++) {
+			pool.execute(() -> {
+				try {
+					responses.add(send(key, BODY, chain));
+				} catch (Throwable e) {
+					unexpected.add(e);
+				}
+			});
+		}
+		// Los duplicados esperan a la primera petición mientras sigue en curso
+		Thread.sleep(300);
+		release.countDown();
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+
+		assertTrue(unexpected.isEmpty(), () -> "Errores inesperados: " + unexpected);
+		assertEquals(1, calls.get());
+		assertEquals(duplicates, responses.size());
+		String expected = "{\"id\":\"" + key + "\"}";
+		int replayed = 0;
+		for (MockHttpServletResponse response : responses) {
+			assertEquals(201, response.getStatus());
+			assertEquals(expected, response.getContentAsString());
+			if ("true".equals(response.getHeader(IdempotencyFilter.REPLAYED_HEADER))) {
+				replayed++;
+			}
+		}
+		assertEquals(duplicates - 1, replayed);
+	}
+
+	private MockHttpServletResponse send(String key, String body, FilterChain chain) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders/create");
+		request.addHeader(IdempotencyFilter.KEY_HEADER, key);
+		request.setContentType("application/json");
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, chain);
+		return response;
+	}
+
+	/**
+	 * Controlador simulado que responde 201 con la clave en el cuerpo.
+	 */
+	private static FilterChain created(AtomicInteger calls, CountDownLatch release) {
+		return (request, response) -> {
+			calls.incrementAndGet();
+			if (release != null) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			String key = ((HttpServletRequest) request).getHeader(IdempotencyFilter.KEY_HEADER);
+			((HttpServletResponse) response).setStatus(201);
+			response.setContentType("application/json");
+			response.getOutputStream().write(("{\"id\":\"" + key + "\"}").getBytes(StandardCharsets.UTF_8));
+		};
+	}
+}
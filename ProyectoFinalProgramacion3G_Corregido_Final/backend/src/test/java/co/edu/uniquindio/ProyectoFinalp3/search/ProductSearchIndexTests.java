@@ -0,0 +1,89 @@
+package co.edu.uniquindio.ProyectoFinalp3.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Orden BM25, borrados marcados y compactación del índice invertido.
+ */
+class ProductSearchIndexTests {
+
+	@Test
+	void ranksByFieldWeightAndLength() {
+		ProductDocument shortName = document("Lámpara roja", null, "Hogar", ProductStatus.ACTIVE);
+		ProductDocument longName = document("Lámpara de escritorio metálica", null, "Hogar", ProductStatus.ACTIVE);
+		ProductDocument inDescription = document("Mesa grande de roble macizo", "Ideal junto a una lámpara", "Hogar",
+				ProductStatus.ACTIVE);
+		ProductDocument inactive = document("Lámpara", null, "Hogar", ProductStatus.INACTIVE);
+		List<ProductDocument> documents = new ArrayList<>(List.of(inDescription, longName, inactive, shortName));
+		for (int i = 0; i < 20; i++) {
+			documents.add(document("Silla " + i, null, "Hogar", ProductStatus.ACTIVE));
+		}
+		ProductSearchIndex index = new ProductSearchIndex();
+		index.rebuild(documents);
+
+		ProductSearchIndex.Hits hits = index.search("lampara", 0, 10);
+		// El nombre pesa más que la descripción y, a igual frecuencia, gana el documento más corto
+		assertEquals(List.of(shortName.getId(), longName.getId(), inDescription.getId()), hits.getIds());
+		assertEquals(3, hits.getTotal());
+		assertEquals(List.of(longName.getId()), index.search("lampara", 1, 1).getIds());
+	}
+
+	@Test
+	void deletedDocumentsDisappearBeforeAndAfterCompaction() {
+		ProductSearchIndex index = new ProductSearchIndex();
+		List<ProductDocument> documents = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			documents.add(document("Item" + i + " común", null, i % 2 == 0 ? "Par" : "Impar", ProductStatus.ACTIVE));
+		}
+		index.rebuild(documents);
+
+		// Un borrado aislado solo marca el documento
+		index.remove(documents.get(0).getId());
+		assertFalse(index.contains(documents.get(0).getId()));
+		assertEquals(List.of(), index.search("item0", 0, 10).getIds());
+		assertEquals(2999, index.search("comun", 0, 10).getTotal());
+
+		// Al superar los borrados a los vivos se compacta y los IDs internos cambian
+		Set<UUID> live = new HashSet<>();
+		for (int i = 1; i < documents.size(); i++) {
+			if (i % 3 == 0) {
+				live.add(documents.get(i).getId());
+			} else {
+				index.remove(documents.get(i).getId());
+			}
+		}
+		assertEquals(live.size(), index.activeSize());
+		assertEquals(live, new HashSet<>(index.search("comun", 0, 5000).getIds()));
+		assertEquals(live, new HashSet<>(index.search("", 0, 5000).getIds()));
+		for (int i = 1; i < documents.size(); i++) {
+			UUID id = documents.get(i).getId();
+			assertEquals(live.contains(id), index.contains(id));
+			assertEquals(live.contains(id), index.search("item" + i, 0, 50).getIds().contains(id));
+		}
+
+		// Las listas remapeadas siguen sirviendo para altas y cambios
+		ProductDocument updated = new ProductDocument(documents.get(3).getId(), "Item3 renovado", null, "Par",
+				ProductStatus.ACTIVE, BigDecimal.ONE);
+		index.index(updated);
+		assertEquals(List.of(updated.getId()), index.search("renovado", 0, 10).getIds());
+		assertTrue(index.search("comun", 0, 5000).getIds().stream().noneMatch(updated.getId()::equals));
+		ProductSearchIndex.FacetedHits facets = index.facetedSearch("", new FacetFilter(null, null, null, null),
+				new BigDecimal[0], null, 0, 10);
+		assertEquals(live.size(), facets.getTotal());
+	}
+
+	private static ProductDocument document(String name, String description, String category, ProductStatus status) {
+		return new ProductDocument(UUID.randomUUID(), name, description, category, status, BigDecimal.TEN);
+	}
+}
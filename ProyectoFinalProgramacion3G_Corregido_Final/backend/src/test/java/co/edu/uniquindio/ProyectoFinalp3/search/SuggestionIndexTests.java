@@ -0,0 +1,128 @@
+package co.edu.uniquindio.ProyectoFinalp3.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Sugerencias del trie comparadas con un recorrido completo tras altas, bajas y likes al azar.
+ */
+class SuggestionIndexTests {
+
+	private static final String[] CATEGORIES = { null, "xa", "xb" };
+
+	@Test
+	void topSuggestionsMatchBruteForce() {
+		Random random = new Random(42);
+		List<UUID> ids = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			ids.add(new UUID(random.nextLong(), random.nextLong()));
+		}
+		SuggestionIndex index = new SuggestionIndex();
+		index.rebuild(List.of(), Map.of());
+		Map<UUID, Indexed> expected = new HashMap<>();
+		TreeSet<String> prefixes = new TreeSet<>(List.of("x"));
+
+		for (int step = 0; step < 3000; step++) {
+			UUID id = ids.get(random.nextInt(ids.size()));
+			int action = random.nextInt(4);
+			if (action < 2) {
+				String name = randomName(random);
+				String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+				boolean active = random.nextInt(5) > 0;
+				long popularity = random.nextInt(4);
+				index.upsert(new ProductDocument(id, name, null, category,
+						active ? ProductStatus.ACTIVE : ProductStatus.INACTIVE, BigDecimal.ONE), popularity);
+				if (active) {
+					expected.put(id, new Indexed(name, category, 1 + popularity));
+				} else {
+					expected.remove(id);
+				}
+				for (int i = 1; i <= name.length(); i++) {
+					prefixes.add(name.substring(0, i));
+				}
+			} else if (action == 2) {
+				index.remove(id);
+				expected.remove(id);
+			} else {
+				long delta = 1 + random.nextInt(2);
+				index.addPopularity(id, delta);
+				Indexed indexed = expected.get(id);
+				if (indexed != null) {
+					indexed.weight += delta;
+				}
+			}
+			if (step % 10 == 0) {
+				for (String prefix : prefixes) {
+					assertEquals(bruteForce(expected, prefix), describe(index.suggest(prefix, SuggestionIndex.TOP_N)),
+							"prefijo " + prefix + " en el paso " + step);
+				}
+			}
+		}
+	}
+
+	@Test
+	void ignoresAccentsAndCaseInPrefix() {
+		SuggestionIndex index = new SuggestionIndex();
+		index.rebuild(List.of(new ProductDocument(UUID.randomUUID(), "Lámpara roja", null, "Hogar",
+				ProductStatus.ACTIVE, BigDecimal.ONE)), Map.of());
+		assertEquals(List.of("product:Lámpara roja:1"), describe(index.suggest("LAMP", 10)));
+		assertEquals(List.of("category:Hogar:1"), describe(index.suggest("hó", 10)));
+		assertEquals(List.of(), describe(index.suggest("mesa", 10)));
+	}
+
+	private static String randomName(Random random) {
+		StringBuilder name = new StringBuilder();
+		int length = 1 + random.nextInt(5);
+		for (int i = 0; i < length; i++) {
+			name.append((char) ('a' + random.nextInt(3)));
+		}
+		return name.toString();
+	}
+
+	private static List<String> bruteForce(Map<UUID, Indexed> products, String prefix) {
+		Map<String, Long> weights = new HashMap<>();
+		for (Indexed indexed : products.values()) {
+			weights.merge("product:" + indexed.name, indexed.weight, Long::sum);
+			if (indexed.category != null) {
+				weights.merge("category:" + indexed.category, 1L, Long::sum);
+			}
+		}
+		return weights.entrySet().stream()
+				.filter(e -> e.getKey().substring(e.getKey().indexOf(':') + 1).startsWith(prefix))
+				.sorted(Comparator.comparing((Map.Entry<String, Long> e) -> -e.getValue())
+						.thenComparing(e -> e.getKey().substring(e.getKey().indexOf(':') + 1)))
+				.limit(SuggestionIndex.TOP_N)
+				.map(e -> e.getKey() + ":" + e.getValue())
+				.collect(Collectors.toList());
+	}
+
+	private static List<String> describe(List<Suggestion> suggestions) {
+		return suggestions.stream()
+				.map(s -> s.getType() + ":" + s.getText() + ":" + s.getWeight())
+				.collect(Collectors.toList());
+	}
+
+	private static final class Indexed {
+		final String name;
+		final String category;
+		long weight;
+
+		Indexed(String name, String category, long weight) {
+			this.name = name;
+			this.category = category;
+			this.weight = weight;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package co.edu.uniquindio.ProyectoFinalp3.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Lectura de registros CSV y números de línea de cada uno.
+ */
+class CsvReaderTests {
+
+	@Test
+	void quotedFieldsKeepCommasQuotesAndNewlines() throws IOException {
+		ProductImportService.CsvReader csv = reader("a,\"b,c\",\"d\ne\"\n\"x\"\"y\",z\n");
+		assertEquals(1, csv.line());
+		assertEquals(List.of("a", "b,c", "d\ne"), csv.next());
+		// El registro anterior ocupó dos líneas
+		assertEquals(3, csv.line());
+		assertEquals(List.of("x\"y", "z"), csv.next());
+		assertEquals(4, csv.line());
+		assertNull(csv.next());
+	}
+
+	@Test
+	void acceptsCrlfAndLoneCr() throws IOException {
+		ProductImportService.CsvReader csv = reader("a,b\r\nc,\"d\r\ne\"\r\nf\rg");
+		assertEquals(List.of("a", "b"), csv.next());
+		assertEquals(2, csv.line());
+		assertEquals(List.of("c", "d\r\ne"), csv.next());
+		assertEquals(4, csv.line());
+		assertEquals(List.of("f"), csv.next());
+		assertEquals(List.of("g"), csv.next());
+		assertNull(csv.next());
+	}
+
+	@Test
+	void keepsByteOrderMarkForTheHeaderToStrip() throws IOException {
+		ProductImportService.CsvReader csv = reader("\uFEFFname,price\n");
+		assertEquals(List.of("\uFEFFname", "price"), csv.next());
+	}
+
+	@Test
+	void rejectsUnclosedQuote() throws IOException {
+		ProductImportService.CsvReader csv = reader("a,b\nc,\"sin cerrar\nd,e\n");
+		assertEquals(List.of("a", "b"), csv.next());
+		assertEquals(2, csv.line());
+		assertThrows(IllegalArgumentException.class, csv::next);
+	}
+
+	private static ProductImportService.CsvReader reader(String text) {
+		return new ProductImportService.CsvReader(new StringReader(text));
+	}
+}
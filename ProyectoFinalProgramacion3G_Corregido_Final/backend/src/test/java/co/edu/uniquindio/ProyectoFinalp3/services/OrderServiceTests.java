@@ -0,0 +1,117 @@
+package co.edu.uniquindio.ProyectoFinalp3.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import co.edu.uniquindio.ProyectoFinalp3.dto.OrderItemRequest;
+import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+import co.edu.uniquindio.ProyectoFinalp3.models.MarketPlace;
+import co.edu.uniquindio.ProyectoFinalp3.models.Product;
+import co.edu.uniquindio.ProyectoFinalp3.models.User;
+import co.edu.uniquindio.ProyectoFinalp3.repository.MarketPlaceRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.ProductRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.UserRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.UuidBinary;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Creación concurrente de órdenes sobre un mismo producto.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:orders;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=60000",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.hibernate.SQL=INFO",
+		"logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+		"logging.level.org.springframework.web=INFO",
+		"logging.level.org.springframework.security=INFO",
+		"logging.level.co.edu.uniquindio.ProyectoFinalp3=INFO"
+})
+@ActiveProfiles("h2")
+class OrderServiceTests {
+
+	private static final int BUYERS = 500;
+
+	private static final int STOCK = 50;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private MarketPlaceRepository marketPlaceRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void concurrentOrdersNeverOversell() throws InterruptedException {
+		String username = "buyer-" + UUID.randomUUID();
+		User user = new User();
+		user.setUsername(username);
+		user.setEmail(username + "@test.com");
+		userRepository.save(user);
+
+		MarketPlace marketPlace = new MarketPlace();
+		marketPlace.setNombre("Mercado");
+		marketPlaceRepository.save(marketPlace);
+
+		Product product = new Product();
+		product.setName("Audífonos");
+		product.setPrice(new BigDecimal("25.00"));
+		product.setAvailableQuantity(STOCK);
+		product.setStatus(ProductStatus.ACTIVE);
+		product.setUser(user);
+		product.setMarketPlace(marketPlace);
+		UUID productId = productRepository.save(product).getId();
+
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger sold = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+		ExecutorService pool = Executors.newFixedThreadPool(BUYERS);
+		for (int i = 0; i < BUYERS; i++) {
+			pool.execute(() -> {
+				try {
+					start.await();
+					orderService.createOrder(username, List.of(new OrderItemRequest(productId, 1)));
+					sold.incrementAndGet();
+				} catch (IllegalArgumentException e) {
+					rejected.incrementAndGet();
+				} catch (Throwable e) {
+					unexpected.add(e);
+				}
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES));
+
+		assertTrue(unexpected.isEmpty(), () -> "Errores inesperados: " + unexpected);
+		assertEquals(STOCK, sold.get());
+		assertEquals(BUYERS - STOCK, rejected.get());
+		assertEquals(0, productRepository.findById(productId).orElseThrow().getAvailableQuantity());
+		Long units = jdbcTemplate.queryForObject(
+				"SELECT COALESCE(SUM(quantity), 0) FROM order_items WHERE product_id = ?",
+				Long.class, (Object) UuidBinary.toBytes(productId));
+		assertEquals(STOCK, units);
+	}
+}
@@ -0,0 +1,104 @@
+package co.edu.uniquindio.ProyectoFinalp3.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import co.edu.uniquindio.ProyectoFinalp3.dto.OrderItemRequest;
+import co.edu.uniquindio.ProyectoFinalp3.enums.OrderStatus;
+import co.edu.uniquindio.ProyectoFinalp3.enums.PaymentMethod;
+import co.edu.uniquindio.ProyectoFinalp3.enums.PaymentType;
+import co.edu.uniquindio.ProyectoFinalp3.enums.ProductStatus;
+import co.edu.uniquindio.ProyectoFinalp3.models.MarketPlace;
+import co.edu.uniquindio.ProyectoFinalp3.models.Order;
+import co.edu.uniquindio.ProyectoFinalp3.models.Product;
+import co.edu.uniquindio.ProyectoFinalp3.models.User;
+import co.edu.uniquindio.ProyectoFinalp3.repository.MarketPlaceRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.OrderRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.PaymentRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.ProductRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.UserRepository;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Pago de una orden cuya reserva de stock ya venció.
+ */
+@SpringBootTest(properties = {
+		"app.orders.reservations.ttl-ms=1",
+		"app.orders.reservations.sweep-ms=3600000",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.hibernate.SQL=INFO",
+		"logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+		"logging.level.org.springframework.web=INFO",
+		"logging.level.org.springframework.security=INFO",
+		"logging.level.co.edu.uniquindio.ProyectoFinalp3=INFO"
+})
+@ActiveProfiles("h2")
+class PaymentServiceTests {
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private PaymentService paymentService;
+
+	@Autowired
+	private InventoryReservationService reservationService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private MarketPlaceRepository marketPlaceRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private PaymentRepository paymentRepository;
+
+	@Test
+	void rejectsPaymentAfterReservationIsReleased() throws InterruptedException {
+		String username = "buyer-" + UUID.randomUUID();
+		User user = new User();
+		user.setUsername(username);
+		user.setEmail(username + "@test.com");
+		userRepository.save(user);
+
+		MarketPlace marketPlace = new MarketPlace();
+		marketPlace.setNombre("Mercado");
+		marketPlaceRepository.save(marketPlace);
+
+		Product product = new Product();
+		product.setName("Lámpara");
+		product.setPrice(new BigDecimal("10.00"));
+		product.setAvailableQuantity(5);
+		product.setStatus(ProductStatus.ACTIVE);
+		product.setUser(user);
+		product.setMarketPlace(marketPlace);
+		product = productRepository.save(product);
+
+		Order order = orderService.createOrder(username, List.of(new OrderItemRequest(product.getId(), 3)));
+		assertEquals(2, productRepository.findById(product.getId()).orElseThrow().getAvailableQuantity());
+
+		// La reserva vence en 1 ms; el barrido cancela la orden y devuelve el stock
+		Thread.sleep(10);
+		reservationService.sweep();
+		assertEquals(OrderStatus.CANCELLED, orderRepository.findById(order.getId()).orElseThrow().getStatus());
+		assertEquals(5, productRepository.findById(product.getId()).orElseThrow().getAvailableQuantity());
+
+		long paymentsBefore = paymentRepository.count();
+		assertThrows(IllegalArgumentException.class, () -> paymentService.processPayment(
+				username, order.getId(), new BigDecimal("30.00"), PaymentType.values()[0], PaymentMethod.values()[0]));
+		assertEquals(paymentsBefore, paymentRepository.count());
+		assertEquals(OrderStatus.CANCELLED, orderRepository.findById(order.getId()).orElseThrow().getStatus());
+	}
+}
@@ -0,0 +1,76 @@
+package co.edu.uniquindio.ProyectoFinalp3.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import co.edu.uniquindio.ProyectoFinalp3.dto.ImportResult;
+import co.edu.uniquindio.ProyectoFinalp3.models.User;
+import co.edu.uniquindio.ProyectoFinalp3.repository.UserRepository;
+import co.edu.uniquindio.ProyectoFinalp3.repository.UuidBinary;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Importación CSV con un lote que falla en la base y se reintenta fila a fila.
+ */
+@SpringBootTest(properties = {
+		"app.products.import.batch-size=3",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.hibernate.SQL=INFO",
+		"logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+		"logging.level.org.springframework.web=INFO",
+		"logging.level.org.springframework.security=INFO",
+		"logging.level.co.edu.uniquindio.ProyectoFinalp3=INFO"
+})
+@ActiveProfiles("h2")
+class ProductImportServiceTests {
+
+	@Autowired
+	private ProductImportService importService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void reportsTheLineOfEachRejectedRow() throws IOException {
+		String username = "seller-" + UUID.randomUUID();
+		User user = new User();
+		user.setUsername(username);
+		user.setEmail(username + "@test.com");
+		user = userRepository.save(user);
+
+		// El nombre de la línea 5 pasa la validación pero excede la columna: el primer lote falla en la base
+		String csv = "\uFEFFname,price,description\r\n"
+				+ "Lámpara,10,\"uno, dos\"\r\n"
+				+ "Mesa,20,\"línea 1\r\nlínea 2\"\r\n"
+				+ "x".repeat(300) + ",30,larga\r\n"
+				+ "Silla,40,\r\n"
+				+ "Cama,abc,\r\n"
+				+ "Sofá,50,\"sin cerrar\r\n";
+		ImportResult result = importService.importProducts(
+				new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), "csv", username);
+
+		assertEquals(3, result.getImported());
+		assertEquals(3, result.getFailed());
+		assertEquals(List.of(5L, 7L, 8L), result.getErrors().stream().map(ImportResult.RowError::getLine).toList());
+		assertFalse(result.isTruncated());
+		List<String> names = jdbcTemplate.queryForList(
+				"SELECT name FROM products WHERE user_id = ? ORDER BY price", String.class,
+				(Object) UuidBinary.toBytes(user.getId()));
+		assertEquals(List.of("Lámpara", "Mesa", "Silla"), names);
+		assertEquals("línea 1\r\nlínea 2", jdbcTemplate.queryForObject(
+				"SELECT description FROM products WHERE user_id = ? AND name = 'Mesa'", String.class,
+				(Object) UuidBinary.toBytes(user.getId())));
+	}
+}
@@ -25,9 +25,11 @@ import { getUsername } from '../lib/auth';
  * @param {string} props.product.imageUrl - URL de la imagen del producto
  * @param {string|Object} props.product.category - Categoría del producto (string o objeto con propiedad name)
  * @param {number|string} props.product.price - Precio del producto
+ * @param {Object} [props.engagement] - Calificaciones y likes ya cargados por la grilla ({ average, count, likes })
+ * @param {boolean} [props.batched] - Si es true, la tarjeta no pide su propio resumen de calificaciones
  * @returns {JSX.Element} Tarjeta de producto clickeable
  */
-export default function ProductCard({ product }) {
+export default function ProductCard({ product, engagement, batched = false }) {
   const { id, name, imageUrl, category, price, status, description, rating, reviewsCount } = product;
 
   const [qty, setQty] = useState(1);
@@ -55,14 +57,20 @@ export default function ProductCard({ product }) {
 
   useEffect(() => {
     setWish(isWishlisted(id))
-    fetchProductRatingSummary(id)
-      .then((summary) => setRatingSummary(summary))
-      .catch(() => { const lr = getLocalRating(id); setRatingSummary({ average: lr.avg || 0, count: lr.count || 0 }) })
+    if (!batched) {
+      fetchProductRatingSummary(id)
+        .then((summary) => setRatingSummary(summary))
+        .catch(() => { const lr = getLocalRating(id); setRatingSummary({ average: lr.avg || 0, count: lr.count || 0 }) })
+    }
     fetchProductAvailability(id)
       .then((data) => setAvailability(data))
       .catch(() => { /* fallback simple */ setAvailability({ availableQuantity: 0, available: status !== 'INACTIVE', status }) })
   }, [id])
 
+  useEffect(() => {
+    if (engagement) setRatingSummary({ average: engagement.average, count: engagement.count })
+  }, [engagement])
+
   // Ajustar cantidad al límite de stock cuando cambia disponibilidad
   useEffect(() => {
     const maxQty = Math.max(1, availability?.availableQuantity || 1)
@@ -1,12 +1,39 @@
 import api from './api'
 
-export async function fetchAllProducts() {
-  const { data } = await api.get('/products')
-  return data
+export async function fetchAllProducts(params = {}) {
+  const { data } = await api.get('/products', { params })
+  return data // página { items, nextCursor }
+}
+
+export async function fetchActiveProducts(params = {}) {
+  const { data } = await api.get('/products/active', { params })
+  return data // página { items, nextCursor }; pasar { after: nextCursor } para la siguiente
 }
 
-export async function fetchActiveProducts() {
-  const { data } = await api.get('/products/active')
+// Recorre todas las páginas del catálogo activo siguiendo nextCursor
+export async function fetchEntireActiveCatalog() {
+  const products = []
+  let after
+  do {
+    const page = await fetchActiveProducts({ after, limit: 100 })
+    products.push(...(page.items || []))
+    after = page.nextCursor
+  } while (after)
+  return products
+}
+
+// Búsqueda con filtros, orden y conteos por faceta resueltos en el servidor
+export async function searchProductsFaceted({ q, categories, statuses, minPrice, maxPrice, sort, offset, limit } = {}) {
+  const { data } = await api.get('/products/search/facets', {
+    params: { q, category: categories, status: statuses, minPrice, maxPrice, sort, offset, limit },
+    paramsSerializer: { indexes: null } // status=A&status=B, como espera Spring
+  })
+  return data // { items, total, offset, limit, categories, statuses, priceRanges }
+}
+
+
+export async function fetchTrendingProducts(limit) {
+  const { data } = await api.get('/products/trending', { params: { limit } })
   return data
 }
 
@@ -15,16 +42,34 @@ export async function fetchProductById(id) {
   return data
 }
 
+export async function fetchProductsByIds(ids) {
+  const { data } = await api.post('/products/batch', ids)
+  return data // { items, missing }
+}
+
 export async function fetchProductAvailability(id) {
   const { data } = await api.get(`/products/${id}/availability`)
   return data // { availableQuantity, available, status }
 }
 
+// Suscripción SSE a cambios de stock, estado y precio; devuelve la función para cerrarla
+export function subscribeProductStream(id, onChange) {
+  const source = new EventSource(`${api.defaults.baseURL}/products/${id}/stream`)
+  source.addEventListener('product', (e) => onChange(JSON.parse(e.data)))
+  return () => source.close()
+}
+
 export async function fetchProductRatingSummary(id) {
   const { data } = await api.get(`/products/${id}/ratings/summary`)
   return data // { average, count }
 }
 
+// Calificaciones y likes de varias tarjetas en una sola petición (máximo 500 IDs)
+export async function fetchProductsEngagement(ids) {
+  const { data } = await api.post('/products/engagement', ids)
+  return data // [{ productId, average, count, likes }]
+}
+
 export async function submitProductRating(id, stars, username) {
   const { data } = await api.post(`/products/${id}/ratings`, null, {
     params: { stars, username }
@@ -39,9 +84,9 @@ export async function fetchMyProductRating(id, username) {
   return data // { stars }
 }
 
-export async function fetchProductsByCategory(category) {
-  const { data } = await api.get(`/products/category/${category}`)
-  return data
+export async function fetchProductsByCategory(category, params = {}) {
+  const { data } = await api.get(`/products/category/${category}`, { params })
+  return data // página { items, nextCursor }
 }
 
 export async function fetchLikesCount(id) {
@@ -49,6 +94,14 @@ export async function fetchLikesCount(id) {
   return data
 }
 
+// Da o quita el like del usuario según su estado actual
+export async function toggleLike(id, userId) {
+  const { data } = await api.post(`/products/${id}/likes/toggle`, null, {
+    params: { userId }
+  })
+  return data // { liked, count }
+}
+
 export async function fetchComments(id) {
   const { data } = await api.get(`/products/${id}/comments`)
   return data
@@ -64,6 +117,12 @@ export async function updateProduct(id, product) {
   return data
 }
 
+// Envía solo los campos cambiados; con version el backend responde 409 si otro la modificó
+export async function patchProduct(id, fields) {
+  const { data } = await api.patch(`/products/${id}`, fields)
+  return data
+}
+
 export async function deleteProduct(id) {
   const { data } = await api.delete(`/products/${id}`)
   return data
@@ -74,11 +133,16 @@ export async function fetchCategories() {
   return data
 }
 
-export async function searchProducts(searchTerm) {
+export async function searchProducts(searchTerm, params = {}) {
   const { data } = await api.get('/products/search', { 
-    params: { q: searchTerm } 
+    params: { q: searchTerm, ...params } 
   })
-  return data
+  return data.items // página { items, total, offset, limit }
+}
+
+export async function fetchSuggestions(prefix, limit) {
+  const { data } = await api.get('/products/suggest', { params: { prefix, limit } })
+  return data // [{ text, type, weight }]
 }
 
 export async function createCategory(category) {
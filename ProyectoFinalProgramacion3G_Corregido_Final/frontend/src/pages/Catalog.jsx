@@ -4,11 +4,14 @@ import BrandLogo from '../components/BrandLogo'
 import Button from '../components/ui/Button'
 import ProductCard from '../components/ProductCard'
 import Skeleton from '../components/ui/Skeleton'
-import { fetchActiveProducts, searchProducts } from '../lib/products'
+import { fetchProductsEngagement, searchProductsFaceted } from '../lib/products'
 // Eliminamos datos de muestra para usar solo productos de la base de datos
 import Header from '../components/Header'
 import Input from '../components/ui/Input'
 
+// Productos por página en la grilla
+const PAGE_SIZE = 24
+
 /**
  * Componente de página de catálogo de productos.
  * Permite buscar, filtrar y ordenar productos con funcionalidad completa de navegación.
@@ -21,8 +24,11 @@ export default function Catalog() {
   const [searchParams, setSearchParams] = useSearchParams()
   // Estados para productos, carga y manejo de errores
   const [products, setProducts] = useState([])
-  const [allProducts, setAllProducts] = useState([]) // Lista base para contadores
+  const [total, setTotal] = useState(0) // Coincidencias en el servidor, no solo las cargadas
+  const [facets, setFacets] = useState({ categories: [], statuses: [] }) // Conteos para los filtros
   const [loading, setLoading] = useState(true)
+  const [loadingMore, setLoadingMore] = useState(false)
+  const [engagement, setEngagement] = useState({}) // Calificaciones y likes por ID
   const [error, setError] = useState(null)
 
   // Extracción de parámetros de búsqueda de la URL
@@ -33,69 +39,75 @@ export default function Catalog() {
   const priceMaxParam = searchParams.get('price_max') || ''
   const status = searchParams.get('status') || 'all'
 
-  // Efecto para cargar y filtrar productos basado en parámetros de búsqueda
+  // Filtros, orden y paginación se resuelven en el servidor sobre todo el catálogo
+  const searchPage = (offset) => searchProductsFaceted({
+    q: query || undefined,
+    categories: category !== 'all' ? [category] : undefined,
+    statuses: status !== 'all' ? [status] : undefined,
+    minPrice: priceMinParam || undefined,
+    maxPrice: priceMaxParam || undefined,
+    sort,
+    offset,
+    limit: PAGE_SIZE,
+  })
+
+  // Efecto para cargar la primera página cuando cambian búsqueda, filtros u orden
   useEffect(() => {
     let mounted = true
     setLoading(true)
-    
-    // Si hay un término de búsqueda, usar el endpoint de búsqueda
-    const fetchFunction = query ? () => searchProducts(query) : fetchActiveProducts
-    
-    fetchFunction()
+    searchPage(0)
       .then((data) => {
         if (mounted) {
-          let list = Array.isArray(data) ? data : []
-          setAllProducts(list)
-          
-          // Si no hay término de búsqueda, aplicar filtros locales
-          if (!query) {
-            // Filtro por categoría
-            if (category !== 'all') {
-              list = list.filter(p => (p.category?.name || '').toLowerCase() === category.toLowerCase())
-            }
-          } else {
-            // Si hay búsqueda, también filtrar por categoría si se especifica
-            if (category !== 'all') {
-              list = list.filter(p => (p.category?.name || '').toLowerCase() === category.toLowerCase())
-            }
-          }
-
-          // Filtro por estado
-          if (status !== 'all') {
-            list = list.filter(p => (p.status || '').toUpperCase() === status.toUpperCase())
-          }
-          
-          // Filtros por rango de precios
-          const min = priceMinParam ? Number(priceMinParam) : null
-          const max = priceMaxParam ? Number(priceMaxParam) : null
-          if (min != null) {
-            list = list.filter(p => Number(p.price) >= min)
-          }
-          if (max != null) {
-            list = list.filter(p => Number(p.price) <= max)
-          }
-          
-          // Ordenamiento de productos
-          if (sort === 'price_asc') {
-            list = [...list].sort((a,b) => Number(a.price) - Number(b.price))
-          } else if (sort === 'price_desc') {
-            list = [...list].sort((a,b) => Number(b.price) - Number(a.price))
-          } else if (sort === 'name_asc') {
-            list = [...list].sort((a,b) => (a.name||'').localeCompare(b.name||''))
-          }
-          
-          setProducts(list)
+          setProducts(Array.isArray(data?.items) ? data.items : [])
+          setTotal(data?.total || 0)
+          setFacets({ categories: data?.categories || [], statuses: data?.statuses || [] })
           setError(null)
         }
       })
       .catch((err) => {
         console.error('Error cargando productos', err)
         setProducts([])
+        setTotal(0)
         setError('No se pudieron cargar los productos. Intenta nuevamente.')
       })
       .finally(() => mounted && setLoading(false))
     return () => { mounted = false }
-  }, [query, sort, category, priceMinParam, priceMaxParam])
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [query, sort, category, status, priceMinParam, priceMaxParam])
+
+  // Agrega la siguiente página al final de la grilla
+  const loadMore = () => {
+    setLoadingMore(true)
+    searchPage(products.length)
+      .then((data) => {
+        const seen = new Set(products.map(p => p.id))
+        setProducts([...products, ...(data?.items || []).filter(p => !seen.has(p.id))])
+        setTotal(data?.total || 0)
+      })
+      .catch((err) => console.error('Error cargando más productos', err))
+      .finally(() => setLoadingMore(false))
+  }
+
+  // Conteo de una faceta por valor, sin distinguir mayúsculas ni acentos
+  const fold = (s) => (s || '').normalize('NFD').replace(/[\u0300-\u036f]/g, '').toLowerCase()
+  const facetCount = (list, value) => (list.find(f => fold(f.value) === fold(value))?.count || 0)
+
+  // Calificaciones y likes de toda la grilla en peticiones de hasta 500 IDs
+  useEffect(() => {
+    let mounted = true
+    const ids = products.map(p => p.id).filter(Boolean)
+    const chunks = []
+    for (let i = 0; i < ids.length; i += 500) chunks.push(ids.slice(i, i + 500))
+    Promise.all(chunks.map(fetchProductsEngagement))
+      .then((results) => {
+        if (!mounted) return
+        const map = {}
+        results.flat().forEach(e => { map[e.productId] = e })
+        setEngagement(map)
+      })
+      .catch((err) => console.error('Error cargando calificaciones', err))
+    return () => { mounted = false }
+  }, [products])
 
   /**
    * Maneja cambios en el campo de búsqueda.
@@ -188,11 +200,11 @@ export default function Catalog() {
           {/* Filtros de categoría */}
           <div className="flex flex-wrap items-center gap-2 mb-4">
             {(() => {
-              const total = allProducts.length
+              const total = facets.categories.reduce((sum, f) => sum + f.count, 0)
               const catCounts = {
-                tecnologia: allProducts.filter(p => (p.category?.name || p.category || '').toLowerCase() === 'tecnologia').length,
-                hogar: allProducts.filter(p => (p.category?.name || p.category || '').toLowerCase() === 'hogar').length,
-                moda: allProducts.filter(p => (p.category?.name || p.category || '').toLowerCase() === 'moda').length,
+                tecnologia: facetCount(facets.categories, 'tecnologia'),
+                hogar: facetCount(facets.categories, 'hogar'),
+                moda: facetCount(facets.categories, 'moda'),
               }
               return ['all','tecnologia','hogar','moda'].map((cat) => (
                 <button 
@@ -213,11 +225,12 @@ export default function Catalog() {
           {/* Filtros por estado */}
           <div className="flex flex-wrap items-center gap-2 mb-4">
             {(() => {
-              const total = allProducts.length
+              // "Todos" son los visibles por defecto en el servidor: ACTIVE y AVAILABLE
+              const total = facetCount(facets.statuses, 'ACTIVE') + facetCount(facets.statuses, 'AVAILABLE')
               const statusCounts = {
-                ACTIVE: allProducts.filter(p => (p.status||'').toUpperCase() === 'ACTIVE').length,
-                INACTIVE: allProducts.filter(p => (p.status||'').toUpperCase() === 'INACTIVE').length,
-                SOLD: allProducts.filter(p => (p.status||'').toUpperCase() === 'SOLD').length,
+                ACTIVE: facetCount(facets.statuses, 'ACTIVE'),
+                INACTIVE: facetCount(facets.statuses, 'INACTIVE'),
+                SOLD: facetCount(facets.statuses, 'SOLD'),
               }
               return ['all','ACTIVE','INACTIVE','SOLD'].map((st) => (
                 <button 
@@ -289,13 +302,23 @@ export default function Catalog() {
         {!loading && !error && (
           <div className="grid grid-cols-1 sm:grid-cols-2 lg:grid-cols-3 xl:grid-cols-4 gap-6">
             {products.map((p) => (
-              <ProductCard key={p.id} product={p} />
+              <ProductCard key={p.id} product={p} engagement={engagement[p.id]} batched />
             ))}
             {products.length === 0 && (
               <p className="text-neutral-600">No hay productos que coincidan con los filtros.</p>
             )}
           </div>
         )}
+
+        {/* Carga incremental: la grilla muestra una página y pide la siguiente bajo demanda */}
+        {!loading && !error && products.length < total && (
+          <div className="flex flex-col items-center gap-2 mt-8">
+            <span className="text-sm text-neutral-600">Mostrando {products.length} de {total} productos</span>
+            <Button variant="secondary" onClick={loadMore} disabled={loadingMore}>
+              {loadingMore ? 'Cargando...' : 'Cargar más'}
+            </Button>
+          </div>
+        )}
       </main>
     </div>
   )
@@ -6,7 +6,7 @@ import { Link, useLocation } from 'react-router-dom'
 import api from '../lib/api'
 import Toast from '../components/ui/Toast'
 import { addToCart } from '../lib/cart'
-import { fetchActiveProducts } from '../lib/products'
+import { fetchEntireActiveCatalog } from '../lib/products'
 
 export default function Chat() {
   const location = useLocation()
@@ -39,7 +39,7 @@ export default function Chat() {
 
   useEffect(() => {
     let mounted = true
-    fetchActiveProducts()
+    fetchEntireActiveCatalog()
       .then((data) => { if (mounted) setCatalog(Array.isArray(data) ? data : []) })
       .catch(() => { /* silencioso: sin catálogo no mostramos acciones */ })
     return () => { mounted = false }
@@ -5,7 +5,7 @@ import { Link, useNavigate } from 'react-router-dom';
 // import { clearUsername } from '../lib/auth';
 import { useEffect, useState } from 'react';
 import ProductCard from '../components/ProductCard';
-import { fetchActiveProducts } from '../lib/products';
+import { fetchEntireActiveCatalog } from '../lib/products';
 // Quitamos datos de muestra; el dashboard usará solo productos activos del backend
 import Header from '../components/Header';
 import Input from '../components/ui/Input';
@@ -43,7 +43,7 @@ export default function Dashboard() {
   // Efecto para cargar productos destacados al montar el componente
   useEffect(() => {
     let mounted = true;
-    fetchActiveProducts()
+    fetchEntireActiveCatalog()
       .then((data) => { 
         if (mounted) {
           const list = Array.isArray(data) ? data : [];
@@ -7,7 +7,7 @@ import Toast from '../components/ui/Toast'
 import Skeleton from '../components/ui/Skeleton'
 // Eliminamos datos de muestra; el detalle debe venir solo del backend
 import { addToCart, getLastQty, setLastQty } from '../lib/cart'
-import { fetchProductById, updateProduct, deleteProduct, fetchProductsByCategory, fetchProductAvailability, fetchProductRatingSummary, submitProductRating, fetchMyProductRating } from '../lib/products'
+import { fetchProductById, patchProduct, deleteProduct, fetchProductsByCategory, fetchProductAvailability, fetchProductRatingSummary, submitProductRating, fetchMyProductRating, subscribeProductStream } from '../lib/products'
 import Header from '../components/Header'
 import ConfirmModal from '../components/ui/ConfirmModal'
 import { useEffect, useState } from 'react'
@@ -74,6 +74,17 @@ export default function ProductDetail() {
     } catch {}
   }, [id])
 
+  // Disponibilidad en vivo: el servidor envía stock, estado y precio cuando cambian
+  useEffect(() => {
+    if (typeof EventSource === 'undefined') return
+    return subscribeProductStream(id, (event) => {
+      if (event.removed) return
+      const qty = Number(event.availableQuantity) || 0
+      setAvailability({ availableQuantity: qty, available: qty > 0 && event.status !== 'INACTIVE', status: event.status })
+      setProduct((prev) => (prev ? { ...prev, price: event.price, status: event.status, availableQuantity: qty } : prev))
+    })
+  }, [id])
+
   // Ajustar cantidad al límite de stock cuando cambia disponibilidad
   useEffect(() => {
     const maxQty = Math.max(1, availability?.availableQuantity || 1)
@@ -84,8 +95,8 @@ export default function ProductDetail() {
     if (!product) return
     const categoryName = typeof product.category === 'object' && product.category?.name ? product.category.name : product.category
     fetchProductsByCategory(categoryName)
-      .then((data) => {
-        const rel = (data || []).filter(p => String(p.id) !== String(id)).slice(0, 12)
+      .then((page) => {
+        const rel = (page?.items || []).filter(p => String(p.id) !== String(id)).slice(0, 12)
         setRelated(rel)
       })
       .catch(() => {
@@ -111,16 +122,22 @@ export default function ProductDetail() {
 
   const saveEdit = async () => {
     try {
-      const updated = await updateProduct(id, {
+      const updated = await patchProduct(id, {
         ...form,
-        price: Number(form.price)
+        category: form.category?.name || form.category,
+        price: Number(form.price),
+        version: product.version
       })
       setProduct(updated)
       setEditing(false)
       setToast({ message: 'Producto actualizado', type: 'success' })
     } catch (err) {
       console.error('Error actualizando producto', err)
-      setToast({ message: 'No se pudo actualizar', type: 'error' })
+      if (err.response?.status === 409) {
+        setToast({ message: 'Otro usuario modificó el producto; recarga para ver los cambios', type: 'error' })
+      } else {
+        setToast({ message: 'No se pudo actualizar', type: 'error' })
+      }
     }
   }
 